@@ -0,0 +1,81 @@
+package com.dansoftware.pdfdisplayer.benchmarks;
+
+import com.dansoftware.pdfdisplayer.source.DocumentData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encoding of a document in base64, to send it to the viewer
+ */
+@State(Scope.Benchmark)
+public class Base64EncodingBenchmark {
+
+    /**
+     * Size of the chunks sent to the native viewer
+     */
+    private static final int CHUNK_SIZE = 3 * 256 * 1024;
+
+    /**
+     * Size of the document, in bytes
+     */
+    @Param({"102400", "1048576", "10485760", "104857600", "524288000"})
+    private int size;
+
+    /**
+     * Content of the document
+     */
+    private byte[] document;
+
+    /**
+     * Document already encoded, like a document found in the document cache
+     */
+    private DocumentData cachedDocument;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        document = BenchmarkDocuments.create(size);
+        cachedDocument = DocumentData.of(document);
+        cachedDocument.getBase64();
+    }
+
+    /**
+     * Whole document encoded at once, as sent to the JPro viewer
+     */
+    @Benchmark
+    public String wholeDocument() {
+        return DocumentData.of(document).getBase64();
+    }
+
+    /**
+     * Document encoded by chunks, as sent to the native viewer
+     */
+    @Benchmark
+    public void chunks(final Blackhole blackhole) {
+        final ByteBuffer data = ByteBuffer.wrap(document);
+        while (data.hasRemaining()) {
+            final ByteBuffer chunk = data.slice();
+            chunk.limit(Math.min(CHUNK_SIZE, chunk.remaining()));
+            data.position(data.position() + chunk.remaining());
+
+            final ByteBuffer base64 = Base64.getEncoder().encode(chunk);
+            blackhole.consume(new String(base64.array(), 0, base64.remaining(), StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    /**
+     * Document found in the document cache : its base64 form is reused
+     */
+    @Benchmark
+    public String cachedDocument() {
+        return cachedDocument.getBase64();
+    }
+}
@@ -0,0 +1,38 @@
+package com.dansoftware.pdfdisplayer.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Documents used by the benchmarks. </br>
+ * The loading path doesn't parse the documents : their content is a pdf header followed by random bytes,
+ * which are as costly to encode as the compressed streams of real documents.
+ */
+public final class BenchmarkDocuments {
+
+    /**
+     * Sizes of the documents, from 100 KB to 500 MB
+     */
+    public static final String[] SIZES = {"102400", "1048576", "10485760", "104857600", "524288000"};
+
+    /**
+     * Private constructor
+     */
+    private BenchmarkDocuments() {
+
+    }
+
+    /**
+     * Create a document
+     * @param size Size of the document, in bytes
+     * @return The content of the document
+     */
+    public static byte[] create(final int size) {
+        final byte[] document = new byte[size];
+        new Random(size).nextBytes(document);
+
+        final byte[] header = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, document, 0, Math.min(header.length, size));
+        return document;
+    }
+}
@@ -0,0 +1,38 @@
+package com.dansoftware.pdfdisplayer.benchmarks;
+
+import com.dansoftware.pdfdisplayer.PDFDisplayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Accumulation of the scripts and commands requested before the loading of the viewer, executed once it is loaded
+ */
+@State(Scope.Benchmark)
+public class DeferredScriptBenchmark {
+
+    /**
+     * Number of scripts or commands requested before the loading of the viewer
+     */
+    @Param({"10", "100", "1000"})
+    private int scriptCount;
+
+    @Benchmark
+    public PDFDisplayer deferredScripts() {
+        final PDFDisplayer displayer = new PDFDisplayer();
+        for (int i = 0; i < scriptCount; i++) {
+            displayer.executeScript("console.log('deferred script " + i + "')");
+        }
+        return displayer;
+    }
+
+    @Benchmark
+    public PDFDisplayer deferredNavigations() {
+        final PDFDisplayer displayer = new PDFDisplayer();
+        for (int i = 0; i < scriptCount; i++) {
+            displayer.navigateByPage(i + 1);
+        }
+        return displayer;
+    }
+}
@@ -0,0 +1,92 @@
+package com.dansoftware.pdfdisplayer.benchmarks;
+
+import com.dansoftware.pdfdisplayer.source.DocumentData;
+import com.dansoftware.pdfdisplayer.source.PathDocumentSource;
+import com.dansoftware.pdfdisplayer.source.StreamDocumentSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Ingestion of a document in memory, from a stream and from a file
+ */
+@State(Scope.Benchmark)
+public class DocumentIngestionBenchmark {
+
+    /**
+     * Size of the document, in bytes
+     */
+    @Param({"102400", "1048576", "10485760", "104857600", "524288000"})
+    private int size;
+
+    /**
+     * Content of the document
+     */
+    private byte[] document;
+
+    /**
+     * File containing the document
+     */
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        document = BenchmarkDocuments.create(size);
+        file = Files.createTempFile("pdfviewerfx-benchmark", ".pdf");
+        Files.write(file, document);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Stream whose size is unknown, like a remote document without Content-Length
+     */
+    @Benchmark
+    public DocumentData streamOfUnknownSize() throws IOException {
+        return new StreamDocumentSource(new ByteArrayInputStream(document) {
+            @Override
+            public synchronized int available() {
+                return 0;
+            }
+        }).read(null, (readBytes, totalBytes) -> { });
+    }
+
+    /**
+     * Stream whose size is known, like a remote document with Content-Length
+     */
+    @Benchmark
+    public DocumentData streamOfKnownSize() throws IOException {
+        return new StreamDocumentSource(new ByteArrayInputStream(document), size)
+                .read(null, (readBytes, totalBytes) -> { });
+    }
+
+    /**
+     * Buffered stream on the file, like the former loading of the local files
+     */
+    @Benchmark
+    public DocumentData fileStream() throws IOException {
+        return new StreamDocumentSource(new BufferedInputStream(Files.newInputStream(file)))
+                .read(null, (readBytes, totalBytes) -> { });
+    }
+
+    /**
+     * File read into a buffer of its exact size
+     */
+    @Benchmark
+    public DocumentData file() throws IOException {
+        return new PathDocumentSource(file).read(null, (readBytes, totalBytes) -> { });
+    }
+}
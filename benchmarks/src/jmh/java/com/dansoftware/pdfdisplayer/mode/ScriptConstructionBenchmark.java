@@ -0,0 +1,81 @@
+package com.dansoftware.pdfdisplayer.mode;
+
+import com.dansoftware.pdfdisplayer.benchmarks.BenchmarkDocuments;
+import com.dansoftware.pdfdisplayer.source.DocumentData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Construction of the scripts sent to the viewer. </br>
+ * In the package of the modes to create both modes, whatever the platform running the benchmark.
+ */
+@State(Scope.Benchmark)
+public class ScriptConstructionBenchmark {
+
+    /**
+     * Size of the document, in bytes
+     */
+    @Param({"102400", "1048576", "10485760", "104857600", "524288000"})
+    private int size;
+
+    /**
+     * Mode accessing the viewer
+     */
+    @Param({"native", "jpro"})
+    private String modeName;
+
+    /**
+     * Mode accessing the viewer
+     */
+    private IMode mode;
+
+    /**
+     * Document already encoded in base64
+     */
+    private String base64;
+
+    /**
+     * Small scripts merged in a JPro batch
+     */
+    private final List<String> batchedScripts = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mode = "jpro".equals(modeName) ? new JProMode() : new NativeMode();
+        base64 = DocumentData.of(BenchmarkDocuments.create(size)).getBase64();
+        for (int i = 0; i < 20; i++) {
+            batchedScripts.add(mode.getPdfViewerWindowScriptCode() + "goToPage(" + i + ");");
+        }
+    }
+
+    /**
+     * Script opening a document sent in base64
+     */
+    @Benchmark
+    public String openDocumentScript() {
+        return mode.getPdfViewerWindowScriptCode() + "openFileFromBase64('" + base64 + "');";
+    }
+
+    /**
+     * Script of a batch of small scripts
+     */
+    @Benchmark
+    public String batchScript() {
+        return ScriptBatch.build(batchedScripts);
+    }
+
+    /**
+     * Script of a typed evaluation
+     */
+    @Benchmark
+    public String evaluationScript() {
+        return ScriptEvaluation.build(mode.getPdfViewerWindowScriptCode(), "PDFViewerApplication.page");
+    }
+}
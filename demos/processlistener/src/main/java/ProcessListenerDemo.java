@@ -34,16 +34,14 @@ public class ProcessListenerDemo extends Application {
 
         //create a btn for loading the pdf
         Button loaderBtn = new Button("Load");
-        loaderBtn.setOnAction(e ->
-            //start a new thread for load the pdf document
-            new Thread(() -> {
-                try {
-                    pdfDisplayer.loadPDF(new URL("https://www.tutorialspoint.com/javafx/javafx_tutorial.pdf"));
-                } catch (IOException ex) {
-                    ex.printStackTrace();
-                }
-            }).start()
-        );
+        loaderBtn.setOnAction(e -> {
+            //the pdf document is downloaded by the loader threads of the displayer
+            try {
+                pdfDisplayer.loadPDF(new URL("https://www.tutorialspoint.com/javafx/javafx_tutorial.pdf"));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        });
 
         final Parent pdfNode = pdfDisplayer.toNode();
         VBox.setVgrow(pdfNode, Priority.ALWAYS);
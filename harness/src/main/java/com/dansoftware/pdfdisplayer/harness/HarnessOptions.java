@@ -0,0 +1,84 @@
+package com.dansoftware.pdfdisplayer.harness;
+
+import com.dansoftware.pdfdisplayer.PdfJSVersion;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Options of the harness, read from the command line arguments :
+ * <pre>
+ * --versions V_2_2_228,V_2_7_570   versions of PDF.js compared
+ * --documents pages-1,pages-10     documents of the corpus measured, all by default
+ * --warmups 1                      runs discarded before the measured ones
+ * --runs 5                         measured runs, for each version and document
+ * --displayers 4                   live displayers of the memory measurement, 0 to skip it
+ * --timeout 120                    timeout of a run, in seconds
+ * --output path/to/results.json    file of the results
+ * </pre>
+ */
+@Getter
+final class HarnessOptions {
+
+    private final Set<PdfJSVersion> versions = EnumSet.allOf(PdfJSVersion.class);
+
+    /**
+     * Names of the measured documents, empty for the whole corpus
+     */
+    private final List<String> documents = new ArrayList<>();
+
+    private int warmups = 1;
+
+    private int runs = 5;
+
+    private int displayers = 4;
+
+    private Duration timeout = Duration.ofSeconds(120);
+
+    private Path output = Path.of("build", "results", "harness", "results.json");
+
+    /**
+     * Read the options from the command line arguments
+     * @param args The arguments
+     * @return The options
+     * @throws IllegalArgumentException If an argument is unknown or invalid
+     */
+    static HarnessOptions parse(final String[] args) {
+        final HarnessOptions options = new HarnessOptions();
+        for (int i = 0; i < args.length; i++) {
+            final String name = args[i];
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value of " + name);
+            }
+            final String value = args[++i];
+            switch (name) {
+                case "--versions" -> {
+                    options.versions.clear();
+                    for (final String version : value.split(",")) {
+                        options.versions.add(PdfJSVersion.valueOf(version.trim()));
+                    }
+                }
+                case "--documents" -> {
+                    for (final String document : value.split(",")) {
+                        options.documents.add(document.trim());
+                    }
+                }
+                case "--warmups" -> options.warmups = Integer.parseInt(value);
+                case "--runs" -> options.runs = Integer.parseInt(value);
+                case "--displayers" -> options.displayers = Integer.parseInt(value);
+                case "--timeout" -> options.timeout = Duration.ofSeconds(Long.parseLong(value));
+                case "--output" -> options.output = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if (options.runs < 1) {
+            throw new IllegalArgumentException("At least one run is required");
+        }
+        return options;
+    }
+}
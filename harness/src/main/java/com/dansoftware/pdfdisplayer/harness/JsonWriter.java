@@ -0,0 +1,124 @@
+package com.dansoftware.pdfdisplayer.harness;
+
+/**
+ * Minimal writer of the JSON results, without dependency. </br>
+ * The values are appended in order : the writer only inserts the separators and escapes the strings.
+ */
+final class JsonWriter {
+
+    private final StringBuilder json = new StringBuilder();
+
+    /**
+     * Whether the next value is the first of its object or array
+     */
+    private boolean first = true;
+
+    JsonWriter beginObject() {
+        separate();
+        json.append('{');
+        first = true;
+        return this;
+    }
+
+    JsonWriter endObject() {
+        json.append('}');
+        first = false;
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        separate();
+        json.append('[');
+        first = true;
+        return this;
+    }
+
+    JsonWriter endArray() {
+        json.append(']');
+        first = false;
+        return this;
+    }
+
+    /**
+     * Write the name of the next value of an object
+     * @param name Name of the value
+     * @return This writer
+     */
+    JsonWriter name(final String name) {
+        separate();
+        string(name);
+        json.append(':');
+        first = true;
+        return this;
+    }
+
+    JsonWriter value(final String value) {
+        separate();
+        if (value == null) {
+            json.append("null");
+        }
+        else {
+            string(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(final long value) {
+        separate();
+        json.append(value);
+        return this;
+    }
+
+    JsonWriter value(final double value) {
+        separate();
+        json.append(Double.isFinite(value) ? String.valueOf(value) : "null");
+        return this;
+    }
+
+    JsonWriter property(final String name, final String value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter property(final String name, final long value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter property(final String name, final double value) {
+        return name(name).value(value);
+    }
+
+    private void separate() {
+        if (!first) {
+            json.append(',');
+        }
+        first = false;
+    }
+
+    private void string(final String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return json.toString();
+    }
+}
@@ -0,0 +1,184 @@
+package com.dansoftware.pdfdisplayer.harness;
+
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Corpus of generated PDF documents, of varying page counts and sizes. </br>
+ * The documents are written object by object, with a valid cross-reference table, so that they are
+ * parsed by PDF.js as regular documents and are identical from one run to another.
+ */
+final class PdfCorpus {
+
+    /**
+     * Lines of text written on each page, to give the viewer a real rendering work
+     */
+    private static final int LINES_PER_PAGE = 40;
+
+    /**
+     * Seed of the padding bytes, for reproducible documents
+     */
+    private static final long SEED = 0x5EED;
+
+    private PdfCorpus() {
+    }
+
+    /**
+     * Provide the default corpus : small to large page counts, and documents made large by an embedded stream
+     * @return The documents of the corpus
+     */
+    static List<Document> defaultCorpus() {
+        final List<Document> documents = new ArrayList<>();
+        documents.add(generate("pages-1", 1, 0));
+        documents.add(generate("pages-10", 10, 0));
+        documents.add(generate("pages-100", 100, 0));
+        documents.add(generate("pages-500", 500, 0));
+        documents.add(generate("pages-10-size-10mb", 10, 10 * 1024 * 1024));
+        documents.add(generate("pages-10-size-50mb", 10, 50 * 1024 * 1024));
+        return documents;
+    }
+
+    /**
+     * Generate a document
+     * @param name Name of the document in the results
+     * @param pages Number of pages
+     * @param padding Size of an unreferenced stream added to the document, to reach a given size
+     * @return The generated document
+     */
+    static Document generate(final String name, final int pages, final int padding) {
+        final Writer writer = new Writer();
+        writer.ascii("%PDF-1.4\n%âãÏÓ\n");
+
+        // 1 : catalog, 2 : pages, 3 : font, then a page and its content for each page, then the padding
+        final int firstPage = 4;
+        final int paddingObject = firstPage + 2 * pages;
+        final int objectCount = padding > 0 ? paddingObject + 1 : paddingObject;
+
+        writer.object(1, "<< /Type /Catalog /Pages 2 0 R >>");
+
+        final StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < pages; i++) {
+            kids.append(firstPage + 2 * i).append(" 0 R ");
+        }
+        writer.object(2, "<< /Type /Pages /Kids [" + kids + "] /Count " + pages + " >>");
+        writer.object(3, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>");
+
+        for (int i = 0; i < pages; i++) {
+            final int pageObject = firstPage + 2 * i;
+            writer.object(pageObject, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792]"
+                    + " /Resources << /Font << /F1 3 0 R >> >> /Contents " + (pageObject + 1) + " 0 R >>");
+            writer.stream(pageObject + 1, pageContent(i + 1, pages).getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        if (padding > 0) {
+            final byte[] bytes = new byte[padding];
+            new Random(SEED).nextBytes(bytes);
+            writer.stream(paddingObject, bytes);
+        }
+
+        return new Document(name, pages, writer.finish(objectCount));
+    }
+
+    /**
+     * Provide the content stream of a page
+     * @param page Number of the page
+     * @param pages Number of pages of the document
+     * @return The content stream
+     */
+    private static String pageContent(final int page, final int pages) {
+        final StringBuilder content = new StringBuilder("BT /F1 24 Tf 72 740 Td (Page ")
+                .append(page).append(" of ").append(pages).append(") Tj ET\n");
+        content.append("BT /F1 10 Tf 72 700 Td 12 TL\n");
+        for (int line = 0; line < LINES_PER_PAGE; line++) {
+            content.append("(Line ").append(line + 1)
+                    .append(" of the benchmark page, rendered by the viewer as any text of a real document.) '\n");
+        }
+        return content.append("ET\n").toString();
+    }
+
+    /**
+     * Generated document
+     */
+    @Getter
+    static final class Document {
+
+        /**
+         * Name of the document in the results
+         */
+        private final String name;
+
+        /**
+         * Number of pages
+         */
+        private final int pages;
+
+        /**
+         * Content of the document
+         */
+        private final byte[] bytes;
+
+        private Document(final String name, final int pages, final byte[] bytes) {
+            this.name = name;
+            this.pages = pages;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Provide the size of the document
+         * @return The size in bytes
+         */
+        int size() {
+            return bytes.length;
+        }
+    }
+
+    /**
+     * Writer of the objects of a document, recording their offsets for the cross-reference table
+     */
+    private static final class Writer {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        private final List<Integer> offsets = new ArrayList<>();
+
+        void ascii(final String text) {
+            out.writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        void object(final int number, final String body) {
+            begin(number);
+            ascii(body + "\nendobj\n");
+        }
+
+        void stream(final int number, final byte[] bytes) {
+            begin(number);
+            ascii("<< /Length " + bytes.length + " >>\nstream\n");
+            out.writeBytes(bytes);
+            ascii("\nendstream\nendobj\n");
+        }
+
+        private void begin(final int number) {
+            // The objects are written in order, from 1
+            offsets.add(out.size());
+            ascii(number + " 0 obj\n");
+        }
+
+        byte[] finish(final int objectCount) {
+            final int xref = out.size();
+            final StringBuilder table = new StringBuilder("xref\n0 ").append(objectCount).append('\n');
+            table.append("0000000000 65535 f \n");
+            for (final int offset : offsets) {
+                table.append(String.format("%010d 00000 n \n", offset));
+            }
+            table.append("trailer\n<< /Size ").append(objectCount).append(" /Root 1 0 R >>\n");
+            table.append("startxref\n").append(xref).append("\n%%EOF\n");
+            ascii(table.toString());
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package com.dansoftware.pdfdisplayer.harness;
+
+import com.dansoftware.pdfdisplayer.LoadingStage;
+import com.dansoftware.pdfdisplayer.PDFDisplayer;
+import com.dansoftware.pdfdisplayer.PdfJSVersion;
+import com.dansoftware.pdfdisplayer.WorkerStatus;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.layout.TilePane;
+import javafx.stage.Stage;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * End-to-end harness of the native viewer, running the real WebView on the headless Monocle platform
+ * with the software renderer : it needs neither display nor GPU. </br>
+ * For each version of PDF.js and each document of a generated corpus, the harness measures the loading time
+ * of the viewer, and the time from {@link PDFDisplayer#loadPDF(byte[])} to each loading stage, up to the display
+ * of the first rendered page. It also measures the heap and the resident memory retained by live displayers.
+ * The results are written in JSON, with the ratios of each version to the first one.
+ */
+@Log4j2
+public final class ViewerHarness {
+
+    /**
+     * Document displayed by the displayers of the memory measurement, when part of the measured corpus
+     */
+    private static final String MEMORY_DOCUMENT = "pages-10";
+
+    private final HarnessOptions options;
+
+    private final List<PdfCorpus.Document> corpus;
+
+    /**
+     * Window displaying the measured displayers
+     */
+    private Stage stage;
+
+    private ViewerHarness(final HarnessOptions options, final List<PdfCorpus.Document> corpus) {
+        this.options = options;
+        this.corpus = corpus;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        // Headless platform by default, also when the harness is not started by gradle
+        System.getProperties().putIfAbsent("glass.platform", "Monocle");
+        System.getProperties().putIfAbsent("monocle.platform", "Headless");
+        System.getProperties().putIfAbsent("prism.order", "sw");
+
+        final HarnessOptions options = HarnessOptions.parse(args);
+        final List<PdfCorpus.Document> corpus = new ArrayList<>(PdfCorpus.defaultCorpus());
+        if (!options.getDocuments().isEmpty()) {
+            corpus.removeIf(document -> !options.getDocuments().contains(document.getName()));
+        }
+
+        Platform.startup(() -> {});
+        try {
+            new ViewerHarness(options, corpus).run();
+        } finally {
+            Platform.exit();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Run all the measurements and write the results
+     * @throws Exception If a measurement fails
+     */
+    private void run() throws Exception {
+        stage = onFxThread(() -> {
+            final Stage window = new Stage();
+            window.setScene(new Scene(new Group(), 1024, 768));
+            window.show();
+            return window;
+        });
+
+        // Memory measured first : the resident memory of the process hardly decreases after the large documents
+        final Map<PdfJSVersion, MemoryResult> memory = new EnumMap<>(PdfJSVersion.class);
+        if (options.getDisplayers() > 0 && !corpus.isEmpty()) {
+            for (final PdfJSVersion version : options.getVersions()) {
+                memory.put(version, measureMemory(version, memoryDocument()));
+                log.info(version + " : " + memory.get(version).heapPerDisplayer + " bytes of heap per displayer");
+            }
+        }
+
+        final Map<PdfJSVersion, Map<String, List<Run>>> runs = new EnumMap<>(PdfJSVersion.class);
+        for (final PdfJSVersion version : options.getVersions()) {
+            final Map<String, List<Run>> versionRuns = new LinkedHashMap<>();
+            for (final PdfCorpus.Document document : corpus) {
+                for (int i = 0; i < options.getWarmups(); i++) {
+                    measureRun(version, document);
+                }
+                final List<Run> documentRuns = new ArrayList<>();
+                for (int i = 0; i < options.getRuns(); i++) {
+                    documentRuns.add(measureRun(version, document));
+                }
+                versionRuns.put(document.getName(), documentRuns);
+                log.info(version + " " + document.getName() + " : first page in "
+                        + Statistics.of(documentRuns, run -> run.toStageMillis(LoadingStage.DONE)).median + " ms");
+            }
+            runs.put(version, versionRuns);
+        }
+
+        final Path output = options.getOutput();
+        if (output.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(output.toAbsolutePath().getParent());
+        }
+        Files.writeString(output, toJson(runs, memory));
+        log.info("Results written to " + output.toAbsolutePath());
+    }
+
+    /**
+     * Measure the display of a document by a new displayer
+     * @param version Version of PDF.js
+     * @param document Displayed document
+     * @return The measured run
+     * @throws Exception If the viewer or the document is not loaded before the timeout
+     */
+    private Run measureRun(final PdfJSVersion version, final PdfCorpus.Document document) throws Exception {
+        final PDFDisplayer displayer = newDisplayer(version);
+        try {
+            onFxThread(() -> {
+                stage.getScene().setRoot(displayer.toNode());
+                return null;
+            });
+            awaitViewer(displayer);
+            final long viewerLoading = displayer.getViewerLoadingDuration().orElseThrow().toNanos();
+            final Map<LoadingStage, Long> stages = await(onFxThread(() -> load(displayer, document)),
+                    () -> version + " " + document.getName() + " stuck at " + displayer.getLoadingStage());
+            return new Run(viewerLoading, stages, displayer.getWorkerStatus());
+        } finally {
+            onFxThread(() -> {
+                stage.getScene().setRoot(new Group());
+                displayer.dispose();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Measure the memory retained by live displayers, each one displaying the document. </br>
+     * The heap retained by the displayers is the difference between the heap used while they are displayed
+     * and once they are disposed, which excludes the garbage of the previous measurements. The resident memory,
+     * which includes the native memory of WebKit, is compared to the one before their creation.
+     * @param version Version of PDF.js
+     * @param document Displayed document
+     * @return The memory retained by each displayer
+     * @throws Exception If a document is not displayed before the timeout
+     */
+    private MemoryResult measureMemory(final PdfJSVersion version, final PdfCorpus.Document document) throws Exception {
+        final int count = options.getDisplayers();
+        usedHeapAfterGc();
+        final long residentBefore = residentMemory();
+
+        final List<PDFDisplayer> displayers = new ArrayList<>();
+        final long heapLive;
+        final long residentLive;
+        try {
+            final List<CompletableFuture<Map<LoadingStage, Long>>> loadings = onFxThread(() -> {
+                final TilePane pane = new TilePane();
+                stage.getScene().setRoot(pane);
+                final List<CompletableFuture<Map<LoadingStage, Long>>> futures = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    final PDFDisplayer displayer = newDisplayer(version);
+                    displayers.add(displayer);
+                    pane.getChildren().add(displayer.toNode());
+                    futures.add(load(displayer, document));
+                }
+                return futures;
+            });
+            await(CompletableFuture.allOf(loadings.toArray(CompletableFuture[]::new)),
+                    () -> version + " " + document.getName() + " stuck at "
+                            + displayers.stream().map(PDFDisplayer::getLoadingStage).toList());
+
+            heapLive = usedHeapAfterGc();
+            residentLive = residentMemory();
+        } finally {
+            onFxThread(() -> {
+                stage.getScene().setRoot(new Group());
+                displayers.forEach(PDFDisplayer::dispose);
+                displayers.clear();
+                return null;
+            });
+        }
+
+        final long heapPerDisplayer = (heapLive - usedHeapAfterGc()) / count;
+        final long residentPerDisplayer = residentBefore < 0 ? -1 : (residentLive - residentBefore) / count;
+        return new MemoryResult(document.getName(), count, heapPerDisplayer, residentPerDisplayer);
+    }
+
+    /**
+     * Provide a displayer without document cache : each run reads and encodes its document
+     * @param version Version of PDF.js
+     * @return The displayer
+     */
+    private static PDFDisplayer newDisplayer(final PdfJSVersion version) {
+        final PDFDisplayer displayer = new PDFDisplayer(version);
+        displayer.setDocumentCache(null);
+        return displayer;
+    }
+
+    /**
+     * Wait for the loading of the viewer : the queries are answered once it is loaded
+     * @param displayer The displayer
+     * @throws Exception If the viewer is not loaded before the timeout
+     */
+    private void awaitViewer(final PDFDisplayer displayer) throws Exception {
+        displayer.evaluate("true", Boolean.class, options.getTimeout()).get();
+    }
+
+    /**
+     * Load a document, recording the time at which each loading stage is reached. Called on the FX thread.
+     * @param displayer The displayer
+     * @param document The document
+     * @return The times of the stages since the call of loadPDF, in nanoseconds, completed when the first page is displayed
+     */
+    private static CompletableFuture<Map<LoadingStage, Long>> load(final PDFDisplayer displayer,
+                                                                    final PdfCorpus.Document document) {
+        final Map<LoadingStage, Long> stages = new EnumMap<>(LoadingStage.class);
+        final CompletableFuture<Map<LoadingStage, Long>> displayed = new CompletableFuture<>();
+        final long start = System.nanoTime();
+        displayer.loadingStageProperty().addListener((observable, oldStage, newStage) -> {
+            if (displayed.isDone()) {
+                return;
+            }
+            stages.putIfAbsent(newStage, System.nanoTime() - start);
+            if (newStage == LoadingStage.DONE) {
+                displayed.complete(stages);
+            }
+        });
+        displayer.loadPDF(document.getBytes());
+        return displayed;
+    }
+
+    /**
+     * Wait for the completion of a future
+     * @param future The future
+     * @param description Description of the awaited operation, reported on timeout
+     * @return The result of the future
+     * @throws Exception If the future fails or is not completed before the timeout
+     */
+    private <T> T await(final CompletableFuture<T> future, final Supplier<String> description) throws Exception {
+        try {
+            return future.get(options.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new TimeoutException(description.get() + " after " + options.getTimeout().toSeconds() + " s");
+        }
+    }
+
+    /**
+     * Provide the document of the memory measurement
+     * @return The document
+     */
+    private PdfCorpus.Document memoryDocument() {
+        return corpus.stream()
+                .filter(document -> MEMORY_DOCUMENT.equals(document.getName()))
+                .findFirst()
+                .orElse(corpus.get(0));
+    }
+
+    /**
+     * Provide the heap used after garbage collections
+     * @return The used heap in bytes
+     * @throws InterruptedException If the thread is interrupted
+     */
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Provide the resident memory of the process, including the native memory of WebKit
+     * @return The resident memory in bytes, -1 if unknown on this platform
+     */
+    private static long residentMemory() {
+        try {
+            for (final String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Resident memory unavailable", e);
+        }
+        return -1;
+    }
+
+    /**
+     * Execute a callable on the FX thread and wait for its result
+     * @param callable The callable
+     * @return Its result
+     * @throws Exception If the callable fails
+     */
+    private static <T> T onFxThread(final Callable<T> callable) throws Exception {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(callable.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get();
+    }
+
+    /**
+     * Build the JSON results
+     * @param runs Runs by version and document
+     * @param memory Memory measurement by version
+     * @return The JSON results
+     */
+    private String toJson(final Map<PdfJSVersion, Map<String, List<Run>>> runs,
+                          final Map<PdfJSVersion, MemoryResult> memory) {
+        final JsonWriter json = new JsonWriter().beginObject();
+
+        json.name("environment").beginObject()
+                .property("javaVersion", System.getProperty("java.version"))
+                .property("javafxVersion", System.getProperty("javafx.runtime.version"))
+                .property("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"))
+                .property("glassPlatform", System.getProperty("glass.platform"))
+                .property("prismOrder", System.getProperty("prism.order"))
+                .property("processors", Runtime.getRuntime().availableProcessors())
+                .property("maxHeap", Runtime.getRuntime().maxMemory())
+                .endObject();
+
+        json.name("options").beginObject()
+                .property("warmups", options.getWarmups())
+                .property("runs", options.getRuns())
+                .property("displayers", options.getDisplayers())
+                .endObject();
+
+        json.name("documents").beginArray();
+        for (final PdfCorpus.Document document : corpus) {
+            json.beginObject()
+                    .property("name", document.getName())
+                    .property("pages", document.getPages())
+                    .property("size", document.size())
+                    .endObject();
+        }
+        json.endArray();
+
+        json.name("results").beginArray();
+        runs.forEach((version, versionRuns) -> versionRuns.forEach((document, documentRuns) -> {
+            json.beginObject()
+                    .property("version", version.name())
+                    .property("document", document);
+            Statistics.of(documentRuns, Run::toViewerLoadingMillis).write(json.name("viewerInitMs"));
+            Statistics.of(documentRuns, run -> run.toStageMillis(LoadingStage.DONE)).write(json.name("firstPageMs"));
+            Statistics.of(documentRuns, Run::toWorkerStartupMillis).write(json.name("workerStartupMs"));
+            json.property("webWorkerRuns", documentRuns.stream().filter(Run::isWebWorker).count());
+            json.name("stagesMs").beginObject();
+            for (final LoadingStage loadingStage : LoadingStage.values()) {
+                final Statistics statistics = Statistics.of(documentRuns, run -> run.toStageMillis(loadingStage));
+                if (statistics.count > 0) {
+                    statistics.write(json.name(loadingStage.name()));
+                }
+            }
+            json.endObject().endObject();
+        }));
+        json.endArray();
+
+        json.name("memory").beginArray();
+        memory.forEach((version, result) -> json.beginObject()
+                .property("version", version.name())
+                .property("document", result.document)
+                .property("displayers", result.displayers)
+                .property("heapPerDisplayerBytes", result.heapPerDisplayer)
+                .property("residentPerDisplayerBytes", result.residentPerDisplayer)
+                .endObject());
+        json.endArray();
+
+        writeComparison(json, runs, memory);
+        return json.endObject().toString();
+    }
+
+    /**
+     * Write the ratios of the medians of each version to the ones of the first version, lower is better
+     * @param json The writer
+     * @param runs Runs by version and document
+     * @param memory Memory measurement by version
+     */
+    private static void writeComparison(final JsonWriter json,
+                                        final Map<PdfJSVersion, Map<String, List<Run>>> runs,
+                                        final Map<PdfJSVersion, MemoryResult> memory) {
+        json.name("comparison").beginArray();
+        final List<PdfJSVersion> versions = new ArrayList<>(runs.keySet());
+        if (versions.size() > 1) {
+            final PdfJSVersion baseline = versions.get(0);
+            for (final PdfJSVersion candidate : versions.subList(1, versions.size())) {
+                json.beginObject()
+                        .property("baseline", baseline.name())
+                        .property("candidate", candidate.name());
+                json.name("documents").beginArray();
+                runs.get(baseline).forEach((document, baselineRuns) -> {
+                    final List<Run> candidateRuns = runs.get(candidate).getOrDefault(document, Collections.emptyList());
+                    json.beginObject()
+                            .property("document", document)
+                            .property("viewerInitRatio", Statistics.of(candidateRuns, Run::toViewerLoadingMillis).median
+                                    / Statistics.of(baselineRuns, Run::toViewerLoadingMillis).median)
+                            .property("firstPageRatio", Statistics.of(candidateRuns, run -> run.toStageMillis(LoadingStage.DONE)).median
+                                    / Statistics.of(baselineRuns, run -> run.toStageMillis(LoadingStage.DONE)).median)
+                            .endObject();
+                });
+                json.endArray();
+                if (memory.containsKey(baseline) && memory.containsKey(candidate)) {
+                    json.property("heapPerDisplayerRatio",
+                            (double) memory.get(candidate).heapPerDisplayer / memory.get(baseline).heapPerDisplayer);
+                }
+                json.endObject();
+            }
+        }
+        json.endArray();
+    }
+
+    /**
+     * Measured display of a document by a new displayer
+     */
+    private static final class Run {
+
+        /**
+         * Loading duration of the viewer in nanoseconds
+         */
+        private final long viewerLoading;
+
+        /**
+         * Time of each loading stage since the call of loadPDF, in nanoseconds
+         */
+        private final Map<LoadingStage, Long> stages;
+
+        /**
+         * Status of the PDF.js worker, null if not reported before the display of the first page
+         */
+        private final WorkerStatus worker;
+
+        private Run(final long viewerLoading, final Map<LoadingStage, Long> stages, final WorkerStatus worker) {
+            this.viewerLoading = viewerLoading;
+            this.stages = stages;
+            this.worker = worker;
+        }
+
+        double toViewerLoadingMillis() {
+            return viewerLoading / 1e6;
+        }
+
+        /**
+         * Provide the startup time of the worker
+         * @return The startup time in milliseconds, NaN if the worker was not reported
+         */
+        double toWorkerStartupMillis() {
+            return worker == null ? Double.NaN : worker.getStartupTime().toMillis();
+        }
+
+        boolean isWebWorker() {
+            return worker != null && worker.isWebWorker();
+        }
+
+        /**
+         * Provide the time of a stage
+         * @param stage The stage
+         * @return The time since the call of loadPDF in milliseconds, NaN if the stage was not observed
+         */
+        double toStageMillis(final LoadingStage stage) {
+            final Long time = stages.get(stage);
+            return time == null ? Double.NaN : time / 1e6;
+        }
+    }
+
+    /**
+     * Memory retained by live displayers
+     */
+    private static final class MemoryResult {
+
+        private final String document;
+
+        private final int displayers;
+
+        private final long heapPerDisplayer;
+
+        /**
+         * Resident memory per displayer, -1 if unknown on this platform
+         */
+        private final long residentPerDisplayer;
+
+        private MemoryResult(final String document, final int displayers,
+                             final long heapPerDisplayer, final long residentPerDisplayer) {
+            this.document = document;
+            this.displayers = displayers;
+            this.heapPerDisplayer = heapPerDisplayer;
+            this.residentPerDisplayer = residentPerDisplayer;
+        }
+    }
+
+    /**
+     * Statistics of a value over runs
+     */
+    private static final class Statistics {
+
+        private final int count;
+
+        private final double min;
+
+        private final double median;
+
+        private final double mean;
+
+        private final double max;
+
+        private Statistics(final double[] values) {
+            count = values.length;
+            min = count == 0 ? Double.NaN : values[0];
+            max = count == 0 ? Double.NaN : values[count - 1];
+            median = count == 0 ? Double.NaN
+                    : count % 2 == 1 ? values[count / 2] : (values[count / 2 - 1] + values[count / 2]) / 2;
+            double sum = 0;
+            for (final double value : values) {
+                sum += value;
+            }
+            mean = count == 0 ? Double.NaN : sum / count;
+        }
+
+        /**
+         * Compute the statistics of a value, ignoring the runs where it is unknown
+         * @param runs The runs
+         * @param value Value of a run
+         * @return The statistics
+         */
+        static Statistics of(final List<Run> runs, final ToDoubleFunction<Run> value) {
+            return new Statistics(runs.stream().mapToDouble(value).filter(v -> !Double.isNaN(v)).sorted().toArray());
+        }
+
+        void write(final JsonWriter json) {
+            json.beginObject()
+                    .property("min", min)
+                    .property("median", median)
+                    .property("mean", mean)
+                    .property("max", max)
+                    .endObject();
+        }
+    }
+}
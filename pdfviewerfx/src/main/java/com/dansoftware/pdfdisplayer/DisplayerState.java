@@ -0,0 +1,45 @@
+package com.dansoftware.pdfdisplayer;
+
+/**
+ * States of the lifecycle of a displayer, from its creation to its disposal
+ */
+public enum DisplayerState {
+
+    /**
+     * The viewer isn't created yet
+     */
+    CREATED,
+
+    /**
+     * The viewer is loading
+     */
+    VIEWER_LOADING,
+
+    /**
+     * The viewer is loaded, without document
+     */
+    READY,
+
+    /**
+     * A document is loaded and opened by the viewer
+     */
+    DOCUMENT_LOADING,
+
+    /**
+     * A document is displayed
+     */
+    SHOWN,
+
+    /**
+     * The displayer is disposed and can't be used anymore
+     */
+    DISPOSED;
+
+    /**
+     * Provide whether the viewer is loaded in this state
+     * @return True if the viewer accepts scripts and documents
+     */
+    public boolean isViewerLoaded() {
+        return this == READY || this == DOCUMENT_LOADING || this == SHOWN;
+    }
+}
@@ -0,0 +1,122 @@
+package com.dansoftware.pdfdisplayer;
+
+import com.dansoftware.pdfdisplayer.metrics.Metrics;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler of the loadings of the documents, shared by the displayers. </br>
+ * The concurrent loadings are capped : the loadings above wait in a bounded queue, and when the queue is full the
+ * submitted loading is rejected, by cancelling it, the waiting loadings of the other displayers being kept.
+ * Each displayer cancels its previous loading when loading another document.
+ */
+@Log4j2
+public final class LoadScheduler {
+
+    /**
+     * Default scheduler
+     */
+    private static final LoadScheduler defaultScheduler =
+            new LoadScheduler(Math.max(2, Runtime.getRuntime().availableProcessors()), 64);
+
+    static {
+        Metrics.registerGauge(Metrics.QUEUED_LOADS, () -> defaultScheduler.getQueuedLoads());
+        Metrics.registerGauge(Metrics.RUNNING_LOADS, () -> defaultScheduler.getRunningLoads());
+    }
+
+    /**
+     * Executor of the loadings
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructor
+     * @param maxConcurrentLoads Maximal count of loadings running at the same time
+     * @param maxQueuedLoads     Maximal count of loadings waiting for a running slot
+     */
+    public LoadScheduler(final int maxConcurrentLoads, final int maxQueuedLoads) {
+        executor = new ThreadPoolExecutor(maxConcurrentLoads, maxConcurrentLoads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(maxQueuedLoads),
+                runnable -> {
+                    final Thread t = new Thread(runnable, "pdfdisplayer-loader");
+                    t.setDaemon(true);
+                    return t;
+                },
+                this::onQueueFull);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Provide the default scheduler, used by the displayers
+     * @return The default scheduler
+     */
+    public static LoadScheduler getDefault() {
+        return defaultScheduler;
+    }
+
+    /**
+     * Submit a loading, cancelled if the queue is full
+     * @param loading The loading
+     */
+    void submit(final Runnable loading) {
+        executor.execute(loading);
+    }
+
+    /**
+     * Cancel a loading, removing it from the queue if it is waiting
+     * @param loading The loading
+     */
+    void cancel(final Future<?> loading) {
+        loading.cancel(true);
+        executor.remove((Runnable) loading);
+    }
+
+    /**
+     * Method called when the queue is full : the submitted loading is rejected, by cancelling it
+     * @param loading  The submitted loading
+     * @param executor The executor
+     */
+    private void onQueueFull(final Runnable loading, final ThreadPoolExecutor executor) {
+        log.warn("Too many waiting loadings, the submitted one is rejected");
+        if (!(loading instanceof Future<?> future)) {
+            throw new RejectedExecutionException("Too many waiting loadings");
+        }
+        future.cancel(false);
+    }
+
+    public int getMaxConcurrentLoads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public void setMaxConcurrentLoads(final int maxConcurrentLoads) {
+        if (maxConcurrentLoads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(maxConcurrentLoads);
+            executor.setCorePoolSize(maxConcurrentLoads);
+        }
+        else {
+            executor.setCorePoolSize(maxConcurrentLoads);
+            executor.setMaximumPoolSize(maxConcurrentLoads);
+        }
+    }
+
+    /**
+     * Provide the count of running loadings
+     * @return The count of running loadings
+     */
+    public int getRunningLoads() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Provide the count of waiting loadings
+     * @return The count of waiting loadings
+     */
+    public int getQueuedLoads() {
+        return executor.getQueue().size();
+    }
+}
@@ -0,0 +1,37 @@
+package com.dansoftware.pdfdisplayer;
+
+/**
+ * Stages of the loading of a document, from its reading to its first rendering
+ */
+public enum LoadingStage {
+
+    /**
+     * No document is being loaded
+     */
+    IDLE,
+
+    /**
+     * The document is read from its source
+     */
+    FETCH,
+
+    /**
+     * The document is encoded and transferred to the viewer
+     */
+    TRANSFER,
+
+    /**
+     * The document is parsed by the viewer
+     */
+    PARSE,
+
+    /**
+     * The first page of the document is rendered
+     */
+    RENDER,
+
+    /**
+     * The first page of the document is displayed
+     */
+    DONE
+}
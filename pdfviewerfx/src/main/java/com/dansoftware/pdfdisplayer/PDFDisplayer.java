@@ -1,36 +1,206 @@
 package com.dansoftware.pdfdisplayer;
 
+import com.dansoftware.pdfdisplayer.cache.DocumentCache;
+import com.dansoftware.pdfdisplayer.cache.DocumentPrefetcher;
+import com.dansoftware.pdfdisplayer.cache.PageImageCache;
+import com.dansoftware.pdfdisplayer.metrics.Metrics;
 import com.dansoftware.pdfdisplayer.mode.IMode;
 import com.dansoftware.pdfdisplayer.mode.IWebNode;
 import com.dansoftware.pdfdisplayer.mode.ModeFactory;
+import com.dansoftware.pdfdisplayer.source.BytesDocumentSource;
+import com.dansoftware.pdfdisplayer.source.DocumentData;
+import com.dansoftware.pdfdisplayer.source.FileRangeSource;
+import com.dansoftware.pdfdisplayer.source.IDocumentSource;
+import com.dansoftware.pdfdisplayer.source.IRangeSource;
+import com.dansoftware.pdfdisplayer.source.IReadListener;
+import com.dansoftware.pdfdisplayer.source.PathDocumentSource;
+import com.dansoftware.pdfdisplayer.source.StreamDocumentSource;
+import com.dansoftware.pdfdisplayer.source.UrlDocumentSource;
+import com.dansoftware.pdfdisplayer.text.PageText;
+import com.dansoftware.pdfdisplayer.text.SearchHit;
 import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
 import javafx.scene.Parent;
+import javafx.scene.image.Image;
 import lombok.extern.log4j.Log4j2;
 
 import java.io.*;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.Base64;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
 @Log4j2
 public class PDFDisplayer {
 
+    /**
+     * Timeout of the queries sent to the viewer, when not specified
+     */
+    private static final Duration DEFAULT_QUERY_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Count of the web nodes of all the displayers, created and not disposed
+     */
+    private static final AtomicInteger activeViewerCount = new AtomicInteger();
+
+    /**
+     * Count of the operations of all the displayers waiting for their web node or their viewer
+     */
+    private static final AtomicInteger deferredOperationCount = new AtomicInteger();
 
-    private static final ExecutorService THREAD_POOL = Executors.newCachedThreadPool(runnable -> {
-        Thread t = new Thread(runnable);
-        t.setDaemon(true);
-        return t;
-    });
+    static {
+        Metrics.registerGauge(Metrics.ACTIVE_VIEWERS, activeViewerCount::get);
+        Metrics.registerGauge(Metrics.DEFERRED_OPERATIONS, deferredOperationCount::get);
+    }
 
-    private final ObjectProperty<Consumer<Task<String>>> onLoaderTaskPresentProperty =
+    /**
+     * Listener of the task loading each document, called on the JavaFX thread. </br>
+     * The task was a {@code Task<String>} before the document sources : the listeners typed
+     * {@code Consumer<Task<String>>} must be typed {@code Consumer<Task<?>>}.
+     */
+    private final ObjectProperty<Consumer<Task<?>>> onLoaderTaskPresentProperty =
             new SimpleObjectProperty<>();
 
+    /**
+     * Whether the local files are loaded by ranges, only reading the parts displayed by the viewer
+     */
+    private final BooleanProperty rangeLoadingProperty = new SimpleBooleanProperty();
+
+    /**
+     * Url of the script of the PDF.js worker, absolute or relative to the viewer. Null for the worker of the version.
+     * @see PdfJSVersion#getWorkerPath()
+     */
+    private final StringProperty workerSrcProperty = new SimpleStringProperty();
+
+    /**
+     * Whether the PDF.js worker is disabled, the documents being parsed on the main thread of the viewer. </br>
+     * Once a document is opened without worker, the worker stays disabled until the viewer is reloaded.
+     */
+    private final BooleanProperty workerDisabledProperty = new SimpleBooleanProperty();
+
+    /**
+     * Whether the PDF.js worker is shared by the documents opened one after the other by the viewer,
+     * instead of starting a worker for each document
+     */
+    private final BooleanProperty workerSharedProperty = new SimpleBooleanProperty(true);
+
+    /**
+     * Tuning options of the viewer, applied when the viewer is loaded : changing them afterwards has no effect
+     * on the loaded viewer. Null for the defaults of PDF.js.
+     */
+    private final ObjectProperty<ViewerOptions> viewerOptionsProperty = new SimpleObjectProperty<>();
+
+    /**
+     * Status of the last PDF.js worker started by the viewer, null until a document is opened
+     */
+    private final ReadOnlyObjectWrapper<WorkerStatus> workerStatusProperty = new ReadOnlyObjectWrapper<>();
+
+    /**
+     * Maximal number of documents opened with an id kept loaded by the viewer, the least recently displayed
+     * documents being unloaded beyond it
+     */
+    private final IntegerProperty maxRetainedDocumentsProperty = new SimpleIntegerProperty(4);
+
+    /**
+     * Id of the displayed document, null if the document wasn't opened with an id. Changed from any thread.
+     */
+    private volatile String displayedDocumentId;
+
+    /**
+     * Id of the displayed document, published on the JavaFX thread
+     */
+    private final ReadOnlyStringWrapper displayedDocumentIdProperty = new ReadOnlyStringWrapper();
+
+    /**
+     * Number of the page displayed by the viewer, 0 when no document is displayed
+     */
+    private final ReadOnlyIntegerWrapper currentPageProperty = new ReadOnlyIntegerWrapper();
+
+    /**
+     * Number of pages of the displayed document
+     */
+    private final ReadOnlyIntegerWrapper pageCountProperty = new ReadOnlyIntegerWrapper();
+
+    /**
+     * Whether the displayed document is loaded
+     */
+    private final ReadOnlyBooleanWrapper documentLoadedProperty = new ReadOnlyBooleanWrapper();
+
+    /**
+     * Number of the last page rendered by the viewer
+     */
+    private final ReadOnlyIntegerWrapper lastRenderedPageProperty = new ReadOnlyIntegerWrapper();
+
+    /**
+     * Zoom scale of the viewer
+     */
+    private final ReadOnlyDoubleWrapper scaleProperty = new ReadOnlyDoubleWrapper(1);
+
+    /**
+     * Stage of the loading of the document
+     */
+    private final ReadOnlyObjectWrapper<LoadingStage> loadingStageProperty = new ReadOnlyObjectWrapper<>(LoadingStage.IDLE);
+
+    /**
+     * Progress of the current loading stage, between 0 and 1, -1 if indeterminate
+     */
+    private final ReadOnlyDoubleWrapper loadingProgressProperty = new ReadOnlyDoubleWrapper(-1);
+
+    /**
+     * Last summary of the rendering of the viewer, null until the viewer renders a page
+     */
+    private final ReadOnlyObjectWrapper<RenderStatistics> renderStatisticsProperty = new ReadOnlyObjectWrapper<>();
+
+    /**
+     * Cache of the documents loaded in memory, shared by default by the whole JVM. Null to disable the cache.
+     */
+    private final ObjectProperty<DocumentCache> documentCacheProperty =
+            new SimpleObjectProperty<>(DocumentCache.getDefault());
+
+    /**
+     * Cache of the page images rendered on request, shared by default by the whole JVM. Null to disable the cache.
+     */
+    private final ObjectProperty<PageImageCache> pageImageCacheProperty =
+            new SimpleObjectProperty<>(PageImageCache.getDefault());
+
     private final PdfJSVersion version;
 
     /**
@@ -38,21 +208,92 @@ public class PDFDisplayer {
      */
     private final IMode mode = ModeFactory.create();
 
-    private boolean pdfJsLoaded;
+    /**
+     * State of the lifecycle of the displayer, changed by compare-and-set from any thread
+     */
+    private final AtomicReference<DisplayerState> state = new AtomicReference<>(DisplayerState.CREATED);
+
+    /**
+     * State of the lifecycle of the displayer, published on the JavaFX thread
+     */
+    private final ReadOnlyObjectWrapper<DisplayerState> stateProperty = new ReadOnlyObjectWrapper<>(DisplayerState.CREATED);
+
+    /**
+     * Opening of a document loaded before the viewer, taken once by the first thread seeing the viewer loaded
+     */
+    private final AtomicReference<Consumer<IWebNode>> pendingDocumentOpening = new AtomicReference<>();
+
+    /**
+     * Commands requested before the loading of the viewer, sent once it is loaded. </br>
+     * Null once the viewer is loaded : the commands are sent directly. {@link ViewerCommandQueue#CLOSED} once disposed.
+     */
+    private final AtomicReference<ViewerCommandQueue> deferredCommands = new AtomicReference<>(ViewerCommandQueue.EMPTY);
+
+    /**
+     * Measurement of the current loading stage
+     */
+    private Metrics.Probe loadingStageProbe;
+
+    /**
+     * Task loading the last requested document. The loadings of the previous documents are cancelled.
+     */
+    private final AtomicReference<Task<?>> loadingTask = new AtomicReference<>();
+
+    /**
+     * Operations requested before the creation of the web node, each polled once by the thread executing it
+     */
+    private final Queue<Consumer<IWebNode>> pendingWebNodeOperations = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Sources of the documents opened with an id, to open them again once unloaded by the viewer. </br>
+     * Synchronized, in the opening order of the documents : iterated in a block synchronized on the map.
+     */
+    private final Map<String, IDocumentSource> documentSources = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * Keys identifying the content of the documents opened with an id, once loaded
+     */
+    private final Map<String, Supplier<String>> documentKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Key identifying the content of the displayed document, computed on demand. Null until the document is loaded.
+     */
+    private volatile Supplier<String> displayedDocumentKey;
+
+    /**
+     * Last view state sent by the viewer for the displayed document, null until displayed
+     */
+    private volatile String viewState;
+
+    /**
+     * Renderer of the page images requested to the viewer
+     */
+    private final PageImageRenderer pageImageRenderer = new PageImageRenderer();
 
-    private String loadScript;
+    /**
+     * Page images being rendered by the viewer, by key, shared by the identical requests
+     */
+    private final Map<String, CompletableFuture<byte[]>> pendingPageImages = new ConcurrentHashMap<>();
 
-    private String toExecuteWhenPDFJSLoaded = "";
+    /**
+     * Extractor of the text of the displayed document
+     */
+    private final PageTextExtractor pageTextExtractor = new PageTextExtractor();
 
     /**
-     * Node containing the web content
+     * Node containing the web content, set once when the viewer is created
      */
-    private IWebNode webNode;
+    private volatile IWebNode webNode;
 
     public PDFDisplayer(final PdfJSVersion version) {
         this.version = version;
     }
 
+    public PDFDisplayer(final PdfJSVersion version, final ViewerOptions viewerOptions) {
+        this(version);
+        setViewerOptions(viewerOptions);
+    }
+
     public PDFDisplayer() {
         this(PdfJSVersion.latest());
     }
@@ -95,217 +336,1257 @@ public class PDFDisplayer {
     }
 
     public void loadPDF(File file) throws IOException {
-        loadPDF(new BufferedInputStream(new FileInputStream(file)));
+        loadPDF(file.toPath());
+    }
+
+    /**
+     * Load a local file. </br>
+     * If the range loading is enabled, the file is not read : the viewer only requests the ranges it displays.
+     * @param path Path of the file
+     * @throws IOException If the file can't be opened
+     */
+    public void loadPDF(Path path) throws IOException {
+        if (isRangeLoading()) {
+            setDisplayedDocumentId(null);
+            submitLoadingTask(buildRangeLoadingTask(path));
+        }
+        else {
+            loadPDF(new PathDocumentSource(path));
+        }
     }
 
+    /**
+     * Load a remote document. </br>
+     * The http documents are requested asynchronously and, with a document cache, revalidated with their ETag
+     * instead of being downloaded again.
+     * @param url Url of the document
+     * @throws IOException If the document can't be opened
+     */
     public void loadPDF(URL url) throws IOException {
-        loadPDF(new BufferedInputStream(url.openConnection().getInputStream()));
+        if ("file".equalsIgnoreCase(url.getProtocol())) {
+            try {
+                loadPDF(Path.of(url.toURI()));
+                return;
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                log.debug("Url not convertible to a path, loaded as a stream : " + url);
+            }
+        }
+        loadPDF(new UrlDocumentSource(url));
     }
 
     public void loadPDF(InputStream inputStream) {
         if (inputStream == null)
             return;
 
-        Task<String> task = buildLoadingTask(inputStream);
-
-        final Consumer<Task<String>> onLoaderTaskPresent = this.onLoaderTaskPresentProperty.get();
-        if (onLoaderTaskPresent != null) {
-            Platform.runLater(() -> onLoaderTaskPresent.accept(task));
-        }
-        THREAD_POOL.submit(task);
+        loadPDF(new StreamDocumentSource(inputStream));
     }
 
     /**
-     * @deprecated Use {@link #loadPDF(InputStream)} instead
+     * Load a document already in memory, without copying it
+     * @param bytes Content of the document. Mustn't be modified.
      */
-    @Deprecated
-    public void displayPdf(final InputStream inputStream) {
-        loadPDF(inputStream);
+    public void loadPDF(byte[] bytes) {
+        loadPDF(new BytesDocumentSource(bytes));
     }
 
-    private Task<String> buildLoadingTask(final InputStream inputStream) {
-        final Task<String> task = new Task<String>() {
-            @Override
-            protected String call() throws Exception {
-                try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
-                    long contentSize = inputStream.available();
-                    long onePercent = contentSize / 100;
-
-                    int allReadBytesCount = 0;
-
-                    byte[] buf = new byte[4096];
-                    int bytesRead;
-                    while ((bytesRead = inputStream.read(buf)) >= 0) {
-                        allReadBytesCount += bytesRead;
-                        outputStream.write(buf, 0, bytesRead);
-
-                        if (onePercent > 0) {
-                            double percent = allReadBytesCount / (double) onePercent;
-                            updateProgress(percent, 100d);
-                        }
-
-                        if (this.isCancelled()) {
-                            return null;
-                        }
-                    }
-
-                    byte[] data = outputStream.toByteArray();
-                    String base64 = Base64.getEncoder().encodeToString(data);
-
-                    //JS Function declaration
-                    return mode.getPdfViewerWindowScriptCode() + "openFileFromBase64('" + base64 + "');";
-                } finally {
-                    inputStream.close();
-                }
-            }
-        };
-        task.valueProperty().addListener((observable, oldValue, js) -> {
-            if (js != null) {
-                try {
-                    webNode.executeScript(js);
-                } catch (Exception ex) {
-                    if (!pdfJsLoaded) loadScript = js;
-                }
-            }
-        });
-        return task;
+    /**
+     * Load a document already in memory, without copying it
+     * @param bytes Content of the document, from its position to its limit. Mustn't be modified.
+     */
+    public void loadPDF(ByteBuffer bytes) {
+        loadPDF(new BytesDocumentSource(bytes));
     }
 
-    @SuppressWarnings("all")
-    public void setSecondaryToolbarToggleVisibility(boolean value) {
-        setVisibilityOf("secondaryToolbarToggle", value);
+    /**
+     * Load the document of a source, through the document cache if any. </br>
+     * Like the other loadPDF methods, it can be called from any thread : the document is read by the loader
+     * threads and the last requested document wins.
+     * @param source Source of the document
+     */
+    public void loadPDF(IDocumentSource source) {
+        setDisplayedDocumentId(null);
+        submitLoadingTask(buildLoadingTask(source, getDocumentCache(), null, null));
+    }
 
-        final String pdfViewerWindowAccessor = mode.getPdfViewerWindowScriptCode();
+    /**
+     * Load a document and display it at the view of a snapshot in its single loading : at its page, zoom and
+     * scroll position, with its sidebar and its find query. </br>
+     * The document is taken from the document cache by the key of the snapshot if still cached, and read from
+     * the source otherwise, through the document cache. Can be called before the creation of the viewer, like
+     * to resume the view of a previous JPro session.
+     * @param snapshot The snapshot, taken with {@link #getSnapshot()}
+     * @param source   Source of the document, used if the document isn't cached. Null if the document is cached.
+     */
+    public void resume(final ViewerSnapshot snapshot, final IDocumentSource source) {
+        setDisplayedDocumentId(null);
+        submitLoadingTask(buildLoadingTask(source, getDocumentCache(), null, snapshot));
+    }
 
-        String js;
-        if (value) {
-            js = new StringBuilder()
-                    .append("var element = " + pdfViewerWindowAccessor + "document.getElementsByClassName('verticalToolbarSeparator')[0];")
-                    .append("element.style.display = 'inherit';")
-                    .append("element.style.visibility = 'inherit';")
-                    .toString();
-        }
-        else {
-            js = new StringBuilder()
-                    .append("var element = " + pdfViewerWindowAccessor + "document.getElementsByClassName('verticalToolbarSeparator')[0];")
-                    .append("element.style.display = 'none';")
-                    .append("element.style.visibility = 'hidden';")
-                    .toString();
+    /**
+     * Provide a snapshot of the view of the displayed document, to display it elsewhere with
+     * {@link #resume(ViewerSnapshot, IDocumentSource)}. </br>
+     * The view is followed as it changes : the snapshot doesn't query the viewer and stays available once the
+     * client of a JPro session is disconnected. The key of the document is computed by the first snapshot.
+     * @return The snapshot, empty if no document is displayed
+     */
+    public Optional<ViewerSnapshot> getSnapshot() {
+        final Supplier<String> documentKey = displayedDocumentKey;
+        final String state = viewState;
+        if (documentKey == null || state == null) {
+            return Optional.empty();
         }
+        return Optional.of(ViewerSnapshot.parse(documentKey.get(), state));
+    }
 
-        try {
-            webNode.executeScript(js);
-        } catch (Exception ex) {
-            if (!pdfJsLoaded) toExecuteWhenPDFJSLoaded += js;
+    /**
+     * Prefetch a document likely to be displayed next, like the next item of a queue, in the document cache with
+     * the default prefetcher. Loading it afterwards skips its reading and its encoding. </br>
+     * The prefetch runs in the background and yields to the loadings of the displayers.
+     * @param source   Source of the document, readable again like a file, an url or bytes
+     * @param priority Priority of the prefetch, the highest priorities being prefetched first
+     * @return Future of the prepared document, failed with an IllegalStateException without document cache
+     * @see DocumentPrefetcher
+     */
+    public CompletableFuture<DocumentData> prefetch(final IDocumentSource source, final int priority) {
+        final DocumentCache cache = getDocumentCache();
+        if (cache == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No document cache"));
         }
+        return DocumentPrefetcher.getDefault().prefetch(source, priority, cache);
     }
 
-    @SuppressWarnings("all")
-    public void setVisibilityOf(final String id, final boolean value) {
-        String css;
-        final String pdfViewerWindowAccessor = mode.getPdfViewerWindowScriptCode();
-        if (value) {
-            css = new StringBuilder()
-                    .append(pdfViewerWindowAccessor + "document.getElementById('" + id + "').style.display = 'inherit';")
-                    .append(pdfViewerWindowAccessor + "document.getElementById('" + id + "').style.visibility = 'inherit';")
-                    .toString();
+    /**
+     * Open a document kept loaded by the viewer, to switch back to it with {@link #switchTo(String)}
+     * without loading it again. The document is loaded in memory, even if the range loading is enabled. </br>
+     * Beyond {@link #getMaxRetainedDocuments()} documents, the least recently displayed ones are unloaded
+     * by the viewer and loaded again, through the document cache, when switched to. Can be called from any thread.
+     * @param id     Id of the document, replacing the document already opened with this id
+     * @param source Source of the document
+     */
+    public void openDocument(final String id, final IDocumentSource source) {
+        documentSources.put(id, source);
+        setDisplayedDocumentId(id);
+        submitLoadingTask(buildLoadingTask(source, getDocumentCache(), id, null));
+    }
+
+    /**
+     * Display a document opened with {@link #openDocument(String, IDocumentSource)}, at the page, zoom and scroll
+     * position where it was left. The document is displayed without loading if still kept by the viewer.
+     * Can be called from any thread.
+     * @param id Id of the document
+     * @throws IllegalArgumentException If no document is opened with this id
+     */
+    public void switchTo(final String id) {
+        final IDocumentSource source = documentSources.get(id);
+        if (source == null) {
+            throw new IllegalArgumentException("No document opened with the id " + id);
         }
-        else {
-            css = new StringBuilder()
-                    .append(pdfViewerWindowAccessor + "document.getElementById('" + id + "').style.display = 'none';")
-                    .append(pdfViewerWindowAccessor + "document.getElementById('" + id + "').style.visibility = 'hidden';")
-                    .toString();
+        if (id.equals(getDisplayedDocumentId())) {
+            return;
         }
 
-        log.info("Mode = " + mode + ", CSS : " + css);
-
-        try {
-            webNode.executeScript(css);
-        } catch (Exception ex) {
-            if (!pdfJsLoaded) this.toExecuteWhenPDFJSLoaded += css;
+        setDisplayedDocumentId(id);
+        if (!getState().isViewerLoaded()) {
+            submitLoadingTask(buildLoadingTask(source, getDocumentCache(), id, null));
+            return;
         }
+        cancelLoading();
+        changeState(DisplayerState.DOCUMENT_LOADING, DisplayerState.READY, DisplayerState.SHOWN);
+        runOnFxThread(() -> documentLoadedProperty.set(false));
+        displayedDocumentKey = documentKeys.get(id);
+        viewState = null;
+        webNode.executeScript(mode.getPdfViewerWindowScriptCode() + "switchToDocument(" + toScriptString(id) + ");");
     }
 
-    public void getActualPageNumber(final IntConsumer pageNumberConsumer) {
-        webNode.executeScript("PDFViewerApplication.page;", o -> pageNumberConsumer.accept((int) o));
-    }
-
-    public void getTotalPageCount(final IntConsumer pageNumberConsumer) {
-        webNode.executeScript("PDFViewerApplication.pagesCount;", o -> pageNumberConsumer.accept((int) o));
-    }
-
-    public void navigateByPage(int pageNum) {
-        String jsCommand = mode.getPdfViewerWindowScriptCode() + "goToPage(" + pageNum + ");";
-        try {
-            webNode.executeScript(jsCommand);
-        } catch (Exception ex) {
-            if (!pdfJsLoaded) toExecuteWhenPDFJSLoaded += jsCommand;
+    /**
+     * Close a document opened with {@link #openDocument(String, IDocumentSource)}, unloading it from the viewer.
+     * Can be called from any thread.
+     * @param id Id of the document
+     */
+    public void closeDocument(final String id) {
+        if (documentSources.remove(id) == null) {
+            return;
+        }
+        documentKeys.remove(id);
+        if (id.equals(getDisplayedDocumentId())) {
+            closeDocument();
+        }
+        if (getState().isViewerLoaded()) {
+            webNode.executeScript(mode.getPdfViewerWindowScriptCode() + "closeRetainedDocument(" + toScriptString(id) + ");");
         }
     }
 
-    public void executeScript(String js) {
-        try {
-            this.webNode.executeScript(js);
-        } catch (Exception ex) {
-            if (!pdfJsLoaded) toExecuteWhenPDFJSLoaded += String.format("%s;", js);
+    /**
+     * Provide the ids of the documents opened with {@link #openDocument(String, IDocumentSource)}
+     * @return The ids, in their opening order
+     */
+    public Set<String> getDocumentIds() {
+        synchronized (documentSources) {
+            return Collections.unmodifiableSet(new LinkedHashSet<>(documentSources.keySet()));
         }
     }
 
     /**
-     * Create the node with the web content
-     * @return The node with the web content
+     * Submit a task loading a document, from any thread
+     * @param task The task
      */
-    private IWebNode createWebNode() {
-        // Create the web node
-        final IWebNode newWebNode = mode.createWebNode();
-
-        // Load the pdf viewer
-        newWebNode.loadPdfViewer(version.getRootPath(), version.getHtmlViewer());
+    private void submitLoadingTask(final Task<?> task) {
+        cancelLoading(loadingTask.getAndSet(task));
 
-        // Define a task to execute when the web content is successfully loaded
-        newWebNode.setOnLoaded(() -> {
-            try {
-                pdfJsLoaded = true;
+        // A superseded document still being opened by the viewer is aborted
+        final DisplayerState previousState = changeState(DisplayerState.DOCUMENT_LOADING,
+                DisplayerState.READY, DisplayerState.DOCUMENT_LOADING, DisplayerState.SHOWN);
+        if (previousState == DisplayerState.DOCUMENT_LOADING) {
+            final IWebNode node = webNode;
+            runOnFxThread(node::closeDocument);
+        }
 
-                if (loadScript != null) {
-                    log.debug("PDF already loaded - Load " + loadScript);
-                    newWebNode.executeScript(loadScript);
+        final Consumer<Task<?>> onLoaderTaskPresent = this.onLoaderTaskPresentProperty.get();
+        if (onLoaderTaskPresent != null) {
+            Platform.runLater(() -> onLoaderTaskPresent.accept(task));
+        }
+        task.stateProperty().addListener((observable, oldValue, taskState) -> {
+            // A task cancelled while still current isn't replaced : rejected by the scheduler, or cancelled by the application
+            if ((taskState == Worker.State.FAILED || taskState == Worker.State.CANCELLED) && task == loadingTask.get()) {
+                if (taskState == Worker.State.FAILED) {
+                    log.error("Can't load the document : ", task.getException());
                 }
-
-
-                newWebNode.executeScript(toExecuteWhenPDFJSLoaded);
-                toExecuteWhenPDFJSLoaded = null;
-                newWebNode.setOnLoaded(null);
-            } catch (Exception e) {
-                log.error("Error while executing scripts on PDF Viewer start : ", e);
+                else {
+                    log.warn("The loading of the document has been cancelled");
+                }
+                changeState(DisplayerState.READY, DisplayerState.DOCUMENT_LOADING);
+                setLoadingStage(LoadingStage.IDLE, -1);
             }
         });
+        displayedDocumentKey = null;
+        viewState = null;
+        setLoadingStage(LoadingStage.FETCH, -1);
+        LoadScheduler.getDefault().submit(task);
+    }
 
-
-        return newWebNode;
+    /**
+     * Cancel the loading of the current document, and its opening if waiting for the viewer
+     */
+    private void cancelLoading() {
+        cancelLoading(loadingTask.getAndSet(null));
     }
 
     /**
-     * Provide the node which display the web content
-     * @return The node which display the web content
+     * Cancel the loading of a superseded document, and its opening if waiting for the viewer
+     * @param task Task loading the document, null if none
      */
-    public Parent toNode() {
-        if (webNode == null) {
-            webNode = createWebNode();
+    private void cancelLoading(final Task<?> task) {
+        if (task != null && !task.isDone()) {
+            LoadScheduler.getDefault().cancel(task);
         }
-        return webNode.toNode();
+        pendingDocumentOpening.set(null);
     }
 
-    public Consumer<Task<String>> getOnLoaderTaskPresentProperty() {
-        return onLoaderTaskPresentProperty.get();
+    /**
+     * @deprecated Use {@link #loadPDF(InputStream)} instead
+     */
+    @Deprecated
+    public void displayPdf(final InputStream inputStream) {
+        loadPDF(inputStream);
     }
 
-    public void setOnLoaderTaskPresentProperty(Consumer<Task<String>> onLoaderTaskPresentProperty) {
-        this.onLoaderTaskPresentProperty.set(onLoaderTaskPresentProperty);
+    /**
+     * Build a task loading a document
+     * @param source       Source of the document, null if the document is taken from the cache by the restored view
+     * @param cache        Document cache, null if none
+     * @param documentId   Id of the document to keep loaded by the viewer, null if it isn't kept
+     * @param restoredView View restored at the opening of the document, null if none
+     * @return The task
+     */
+    private Task<DocumentData> buildLoadingTask(final IDocumentSource source, final DocumentCache cache,
+                                                final String documentId, final ViewerSnapshot restoredView) {
+        final Task<DocumentData> task = new Task<DocumentData>() {
+            @Override
+            protected DocumentData call() throws Exception {
+                if (restoredView != null) {
+                    final Optional<DocumentData> cachedDocument =
+                            cache == null ? Optional.empty() : cache.get(restoredView.getDocumentKey());
+                    if (cachedDocument.isPresent()) {
+                        return cachedDocument.get();
+                    }
+                    if (source == null) {
+                        throw new IOException("Document of the snapshot not cached : " + restoredView.getDocumentKey());
+                    }
+                }
+                final IReadListener listener = (readBytes, totalBytes) -> updateProgress(readBytes, totalBytes);
+                return cache != null ? cache.load(source, listener) : source.read(null, listener);
+            }
+        };
+        task.progressProperty().addListener((observable, oldValue, progress) -> {
+            if (task == loadingTask.get() && getLoadingStage() == LoadingStage.FETCH) {
+                loadingProgressProperty.set(progress.doubleValue());
+            }
+        });
+        task.valueProperty().addListener((observable, oldValue, document) -> {
+            if (document != null && task == loadingTask.get()) {
+                Metrics.recordLoadBytes(document.size());
+                setLoadingStage(LoadingStage.TRANSFER, 0);
+                // Also keys the cached document by its content, so that its snapshots are resumed from the cache
+                final Supplier<String> documentKey = cache != null
+                        ? () -> cache.getContentKey(document)
+                        : () -> "sha-256:" + document.getContentHash();
+                displayedDocumentKey = documentKey;
+                if (documentId != null) {
+                    documentKeys.put(documentId, documentKey);
+                }
+                openDocument(task, documentId, node -> {
+                    if (restoredView != null) {
+                        node.executeScript(buildRestoringScript(restoredView));
+                    }
+                    node.openDocument(document);
+                });
+            }
+        });
+        return task;
     }
 
-    public ObjectProperty<Consumer<Task<String>>> onLoaderTaskPresentProperty() {
+    private Task<IRangeSource> buildRangeLoadingTask(final Path path) {
+        final Task<IRangeSource> task = new Task<IRangeSource>() {
+            @Override
+            protected IRangeSource call() throws Exception {
+                return new FileRangeSource(path);
+            }
+        };
+        task.valueProperty().addListener((observable, oldValue, source) -> {
+            if (source != null && task == loadingTask.get()) {
+                setLoadingStage(LoadingStage.TRANSFER, -1);
+                displayedDocumentKey = () -> {
+                    try {
+                        return new PathDocumentSource(path).getCacheKey().orElseThrow();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                };
+                openDocument(task, null, node -> node.openDocument(source));
+            }
+            else if (source != null) {
+                // Superseded by another document
+                try {
+                    source.close();
+                } catch (IOException e) {
+                    log.warn("Can't close the range source : ", e);
+                }
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Open a loaded document in the viewer, or when the viewer is loaded. </br>
+     * The opening is not attempted while the viewer is loading : the page being loaded could accept the
+     * first calls and lose the document when it is replaced by the viewer.
+     * @param task       Task which loaded the document, the opening being abandoned if superseded
+     * @param documentId Id of the document to keep loaded by the viewer, null if it isn't kept
+     * @param opening    Opening of the document in the web node
+     */
+    private void openDocument(final Task<?> task, final String documentId, final Consumer<IWebNode> opening) {
+        documentLoadedProperty.set(false);
+        pendingDocumentOpening.set(node -> {
+            if (task == loadingTask.get()) {
+                node.executeScript(buildOpeningScript(documentId));
+                opening.accept(node);
+            }
+        });
+
+        // Opened here if the viewer is loaded, else by the loading of the viewer
+        if (getState().isViewerLoaded()) {
+            runPendingDocumentOpening(webNode);
+        }
+    }
+
+    /**
+     * Open the document waiting for the viewer, if not yet opened by another thread
+     * @param node The web node of the loaded viewer
+     */
+    private void runPendingDocumentOpening(final IWebNode node) {
+        final Consumer<IWebNode> opening = pendingDocumentOpening.getAndSet(null);
+        if (opening == null) {
+            return;
+        }
+        changeState(DisplayerState.DOCUMENT_LOADING, DisplayerState.READY, DisplayerState.SHOWN);
+        try {
+            opening.accept(node);
+        } catch (Exception ex) {
+            log.error("Can't open the document in the viewer : ", ex);
+        }
+    }
+
+    /**
+     * Build the script configuring the opening of the next document by the viewer : its PDF.js worker,
+     * and whether the document is kept loaded
+     * @param documentId Id of the document to keep loaded by the viewer, null if it isn't kept
+     * @return The script
+     */
+    private String buildOpeningScript(final String documentId) {
+        final String workerSrc = getWorkerSrc();
+        final String pdfViewerWindowAccessor = mode.getPdfViewerWindowScriptCode();
+        return pdfViewerWindowAccessor + "configureWorker(" + toScriptString(workerSrc == null ? "" : workerSrc) + ", "
+                + isWorkerDisabled() + ", " + isWorkerShared() + ");"
+                + pdfViewerWindowAccessor + "retainNextDocument(" + toScriptString(documentId) + ", "
+                + Math.max(1, getMaxRetainedDocuments()) + ");";
+    }
+
+    /**
+     * Build the script restoring a view at the opening of the next document by the viewer
+     * @param view The view
+     * @return The script
+     */
+    private String buildRestoringScript(final ViewerSnapshot view) {
+        return mode.getPdfViewerWindowScriptCode() + "restoreNextView(" + toScriptString(view.getLocation()) + ", "
+                + view.getSidebarView() + ", " + toScriptString(view.getFindQuery()) + ");";
+    }
+
+    /**
+     * Provide the JavaScript literal of a string
+     * @param value The string
+     * @return The quoted and escaped string, null if the string is null
+     */
+    private static String toScriptString(final String value) {
+        return value == null ? "null" : "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    public void setSecondaryToolbarToggleVisibility(boolean value) {
+        setVisibilityOf("secondaryToolbarToggle", value);
+        sendCommand(ViewerCommand.visibility(".verticalToolbarSeparator", value));
+    }
+
+    /**
+     * Show or hide an element of the viewer
+     * @param id    Id of the element
+     * @param value Whether the element is visible
+     */
+    public void setVisibilityOf(final String id, final boolean value) {
+        sendCommand(ViewerCommand.visibility("#" + id, value));
+    }
+
+    /**
+     * @deprecated Use {@link #currentPage()} instead
+     */
+    @Deprecated
+    public void getActualPageNumber(final IntConsumer pageNumberConsumer) {
+        currentPage().thenAccept(pageNumberConsumer::accept);
+    }
+
+    /**
+     * @deprecated Use {@link #totalPageCount()} instead
+     */
+    @Deprecated
+    public void getTotalPageCount(final IntConsumer pageNumberConsumer) {
+        totalPageCount().thenAccept(pageNumberConsumer::accept);
+    }
+
+    /**
+     * Provide the number of the page displayed by the viewer
+     * @return Future of the page number
+     */
+    public CompletableFuture<Integer> currentPage() {
+        return evaluate("PDFViewerApplication.page", Integer.class);
+    }
+
+    /**
+     * Provide the number of pages of the displayed document
+     * @return Future of the page count
+     */
+    public CompletableFuture<Integer> totalPageCount() {
+        return evaluate("PDFViewerApplication.pagesCount", Integer.class);
+    }
+
+    /**
+     * Render a page of the displayed document in PNG, through the page image cache if any. </br>
+     * The viewer renders the page apart from its display, one page at a time. The future isn't completed
+     * on the JavaFX thread.
+     * @param pageNumber Number of the page, from 1
+     * @param scale      Scale of the rendering, 1 for 72 dpi
+     * @return Future of the image in PNG, failed with an IllegalStateException if no document is loaded
+     * or if the displayed document changes before the rendering
+     * @throws IllegalArgumentException If the page doesn't exist or the scale isn't positive
+     */
+    public CompletableFuture<byte[]> renderPage(final int pageNumber, final double scale) {
+        if (!(scale > 0) || Double.isInfinite(scale)) {
+            throw new IllegalArgumentException("Invalid scale : " + scale);
+        }
+        final Supplier<String> documentKey = displayedDocumentKey;
+        if (webNode == null || documentKey == null || !isDocumentLoaded()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No document loaded"));
+        }
+        if (pageNumber < 1 || pageNumber > getPageCount()) {
+            throw new IllegalArgumentException("No page " + pageNumber + " in the document");
+        }
+
+        final PageImageCache cache = getPageImageCache();
+        return CompletableFuture.supplyAsync(() -> PageImageCache.key(documentKey.get(), pageNumber, scale))
+                .thenCompose(imageKey -> {
+                    final Optional<byte[]> cachedImage = cache == null ? Optional.empty() : cache.get(imageKey);
+                    if (cachedImage.isPresent()) {
+                        return CompletableFuture.completedFuture(cachedImage.get());
+                    }
+                    final CompletableFuture<byte[]> rendering = new CompletableFuture<>();
+                    final CompletableFuture<byte[]> pendingRendering = pendingPageImages.putIfAbsent(imageKey, rendering);
+                    if (pendingRendering != null) {
+                        return pendingRendering;
+                    }
+                    renderPageInViewer(documentKey, pageNumber, scale).whenComplete((image, error) -> {
+                        if (error == null && cache != null) {
+                            cache.put(imageKey, image);
+                        }
+                        pendingPageImages.remove(imageKey);
+                        if (error != null) {
+                            rendering.completeExceptionally(error);
+                        }
+                        else {
+                            rendering.complete(image);
+                        }
+                    });
+                    return rendering;
+                });
+    }
+
+    /**
+     * Render a page of the displayed document as a JavaFX image
+     * @see #renderPage(int, double)
+     */
+    public CompletableFuture<Image> renderPageImage(final int pageNumber, final double scale) {
+        return renderPage(pageNumber, scale).thenApply(image -> new Image(new ByteArrayInputStream(image)));
+    }
+
+    /**
+     * Render a range of pages of the displayed document in PNG, like thumbnails
+     * @param firstPage Number of the first page, from 1
+     * @param lastPage  Number of the last page, included
+     * @param scale     Scale of the rendering, 1 for 72 dpi
+     * @return Future of the images in PNG, in the order of the pages
+     * @see #renderPage(int, double)
+     */
+    public CompletableFuture<List<byte[]>> renderPages(final int firstPage, final int lastPage, final double scale) {
+        if (firstPage > lastPage) {
+            throw new IllegalArgumentException("Invalid page range : " + firstPage + "-" + lastPage);
+        }
+        final List<CompletableFuture<byte[]>> renderings = new ArrayList<>();
+        for (int page = firstPage; page <= lastPage; page++) {
+            renderings.add(renderPage(page, scale));
+        }
+        return CompletableFuture.allOf(renderings.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> renderings.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Extract the text of the displayed document
+     * @see #extractText(Consumer)
+     */
+    public CompletableFuture<List<PageText>> extractText() {
+        return extractText(null);
+    }
+
+    /**
+     * Extract the text of the displayed document, as read by the find controller of the viewer with its lines
+     * separated by line breaks. </br>
+     * The viewer extracts the pages one after the other : the text of each page is given as soon as it is
+     * extracted, on the JavaFX thread, for example to index it.
+     * @param onPageExtracted Consumer of the text of each page, null if none
+     * @return Future of the text of all the pages, failed with an IllegalStateException if no document is loaded
+     * @see com.dansoftware.pdfdisplayer.text.TextIndex
+     */
+    public CompletableFuture<List<PageText>> extractText(final Consumer<PageText> onPageExtracted) {
+        if (webNode == null || !isDocumentLoaded()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No document loaded"));
+        }
+        return pageTextExtractor.extract(webNode, mode.getPdfViewerWindowScriptCode(), onPageExtracted);
+    }
+
+    /**
+     * Display the page of a search hit in the displayed document and highlight its text
+     * @param hit The hit, found in the text of the displayed document
+     */
+    public void highlight(final SearchHit hit) {
+        highlight(hit.getPageNumber(), hit.getOffset(), hit.getLength());
+    }
+
+    /**
+     * Display a page and highlight a part of its text
+     * @param pageNumber Number of the page, from 1
+     * @param offset     Position of the text in the extracted text of the page
+     * @param length     Length of the text
+     * @see #extractText(Consumer)
+     */
+    public void highlight(final int pageNumber, final int offset, final int length) {
+        executeScript(mode.getPdfViewerWindowScriptCode() + "highlightMatch(" + pageNumber + ", " + offset + ", " + length + ");");
+    }
+
+    /**
+     * Request the rendering of a page to the viewer, on the JavaFX thread
+     * @param documentKey Key of the document to render, checked against the displayed document
+     * @param pageNumber  Number of the page, from 1
+     * @param scale       Scale of the rendering
+     * @return Future of the image in PNG
+     */
+    private CompletableFuture<byte[]> renderPageInViewer(final Supplier<String> documentKey, final int pageNumber,
+                                                         final double scale) {
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            if (documentKey != displayedDocumentKey || !isDocumentLoaded()) {
+                result.completeExceptionally(new IllegalStateException("Displayed document changed before the rendering"));
+                return;
+            }
+            final CompletableFuture<byte[]> rendering =
+                    pageImageRenderer.render(webNode, mode.getPdfViewerWindowScriptCode(), pageNumber, scale);
+            rendering.whenComplete((image, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                }
+                else {
+                    result.complete(image);
+                }
+            });
+            result.whenComplete((image, error) -> rendering.cancel(false));
+        });
+        return result;
+    }
+
+    /**
+     * Evaluate a JavaScript expression in the window of the viewer, with the default timeout
+     * @see #evaluate(String, Class, Duration)
+     */
+    public <T> CompletableFuture<T> evaluate(final String expression, final Class<T> type) {
+        return evaluate(expression, type, DEFAULT_QUERY_TIMEOUT);
+    }
+
+    /**
+     * Evaluate a JavaScript expression in the window of the viewer. </br>
+     * The evaluation is queued until the viewer is loaded. Cancelling the returned future, or its timeout,
+     * abandons the evaluation if it isn't executed yet. The future isn't completed on the JavaFX thread.
+     * @param expression The expression to evaluate
+     * @param type       Type of the result : String, Boolean, Integer, Long or Double
+     * @param timeout    Maximal time waited for the result
+     * @param <T>        Type of the result
+     * @return Future of the result, null if the expression has no value
+     */
+    public <T> CompletableFuture<T> evaluate(final String expression, final Class<T> type, final Duration timeout) {
+        final CompletableFuture<T> result = new CompletableFuture<T>()
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        withWebNode(node -> {
+            final CompletableFuture<T> evaluation = node.evaluate(expression, type);
+            evaluation.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                }
+                else {
+                    result.complete(value);
+                }
+            });
+            result.whenComplete((value, error) -> evaluation.cancel(false));
+        });
+        return result;
+    }
+
+    /**
+     * Execute an operation on the web node, or once it is created
+     * @param operation The operation
+     */
+    private void withWebNode(final Consumer<IWebNode> operation) {
+        if (webNode == null) {
+            pendingWebNodeOperations.add(operation);
+            deferredOperationCount.incrementAndGet();
+
+            // The web node may have been created meanwhile, its creation missing the operation
+            if (webNode != null) {
+                runPendingWebNodeOperations();
+            }
+            return;
+        }
+        operation.accept(webNode);
+    }
+
+    /**
+     * Execute the operations waiting for the web node, each one by the thread polling it
+     */
+    private void runPendingWebNodeOperations() {
+        Consumer<IWebNode> operation;
+        while ((operation = pendingWebNodeOperations.poll()) != null) {
+            deferredOperationCount.decrementAndGet();
+            operation.accept(webNode);
+        }
+    }
+
+    /**
+     * Display a page. Requested before the loading of the document, the page is displayed once it is loaded.
+     * @param pageNum Number of the page, from 1
+     */
+    public void navigateByPage(int pageNum) {
+        sendCommand(ViewerCommand.navigate(pageNum));
+    }
+
+    /**
+     * Change the zoom of the viewer. Requested before the loading of the document, the zoom is applied
+     * once it is loaded.
+     * @param scale The scale, 1 for the actual size
+     */
+    public void zoomTo(final double scale) {
+        zoomTo(String.valueOf(scale));
+    }
+
+    /**
+     * Change the zoom of the viewer
+     * @param scaleValue Scale, like "1.5", or zoom mode : "auto", "page-actual", "page-fit" or "page-width"
+     * @see #zoomTo(double)
+     */
+    public void zoomTo(final String scaleValue) {
+        sendCommand(ViewerCommand.zoom(scaleValue));
+    }
+
+    /**
+     * Execute a script in the page hosting the viewer, or once the viewer is loaded
+     * @param js The script
+     */
+    public void executeScript(String js) {
+        sendCommand(ViewerCommand.script(js));
+    }
+
+    /**
+     * Send a command to the viewer, or queue it until the viewer is loaded. Can be called from any thread.
+     * @param command The command
+     */
+    private void sendCommand(final ViewerCommand command) {
+        while (true) {
+            final ViewerCommandQueue queue = deferredCommands.get();
+            if (queue == ViewerCommandQueue.CLOSED) {
+                return;
+            }
+            if (queue == null) {
+                executeScripts(ViewerCommandQueue.toScripts(List.of(command), mode.getPdfViewerWindowScriptCode()));
+                return;
+            }
+            final ViewerCommandQueue newQueue = queue.with(command);
+            if (deferredCommands.compareAndSet(queue, newQueue)) {
+                deferredOperationCount.addAndGet(newQueue.size() - queue.size());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Send the deferred commands to the loaded viewer. The commands queued meanwhile are sent after them,
+     * until the queue is empty and the commands are sent directly.
+     */
+    private void flushDeferredCommands() {
+        while (true) {
+            final ViewerCommandQueue queue = deferredCommands.get();
+            if (queue == null || queue == ViewerCommandQueue.CLOSED) {
+                return;
+            }
+            if (queue.isEmpty()) {
+                if (deferredCommands.compareAndSet(queue, null)) {
+                    return;
+                }
+            }
+            else if (deferredCommands.compareAndSet(queue, ViewerCommandQueue.EMPTY)) {
+                deferredOperationCount.addAndGet(-queue.size());
+                executeScripts(queue.toScripts(mode.getPdfViewerWindowScriptCode()));
+            }
+        }
+    }
+
+    /**
+     * Execute scripts in the viewer
+     * @param scripts The scripts, in their order
+     */
+    private void executeScripts(final List<String> scripts) {
+        try {
+            scripts.forEach(webNode::executeScript);
+        } catch (Exception ex) {
+            log.error("Can't execute the viewer commands : ", ex);
+        }
+    }
+
+    /**
+     * Create the node with the web content
+     * @return The node with the web content
+     */
+    private IWebNode createWebNode() {
+        // Create the web node
+        final IWebNode newWebNode = mode.createWebNode();
+        activeViewerCount.incrementAndGet();
+
+        // Follow the events of the viewer
+        newWebNode.setOnViewerEvent((name, value) -> {
+            if (Platform.isFxApplicationThread()) {
+                onViewerEvent(name, value);
+            }
+            else {
+                Platform.runLater(() -> onViewerEvent(name, value));
+            }
+        });
+
+        // Load the pdf viewer
+        final ViewerOptions viewerOptions = getViewerOptions();
+        newWebNode.loadPdfViewer(version.getRootPath(), version.getHtmlViewer(),
+                viewerOptions != null ? viewerOptions.toUrlFragment() : null);
+
+        // Define a task to execute when the web content is successfully loaded
+        newWebNode.setOnLoaded(() -> {
+            if (changeState(DisplayerState.READY, DisplayerState.VIEWER_LOADING) == null) {
+                // Disposed, or already loaded
+                return;
+            }
+            try {
+                runPendingDocumentOpening(newWebNode);
+                flushDeferredCommands();
+                newWebNode.setOnLoaded(null);
+            } catch (Exception e) {
+                log.error("Error while executing scripts on PDF Viewer start : ", e);
+            }
+        });
+
+
+        return newWebNode;
+    }
+
+    /**
+     * Close the displayed document, cancelling its loading if still in progress. </br>
+     * The viewer stays loaded and can display another document. The documents opened with an id stay kept.
+     * Can be called from any thread.
+     */
+    public void closeDocument() {
+        cancelLoading();
+        changeState(DisplayerState.READY, DisplayerState.DOCUMENT_LOADING, DisplayerState.SHOWN);
+
+        setLoadingStage(LoadingStage.IDLE, -1);
+        setDisplayedDocumentId(null);
+        displayedDocumentKey = null;
+        viewState = null;
+        runOnFxThread(() -> {
+            currentPageProperty.set(0);
+            pageCountProperty.set(0);
+            documentLoadedProperty.set(false);
+            lastRenderedPageProperty.set(0);
+        });
+
+        final IWebNode node = webNode;
+        if (node != null) {
+            runOnFxThread(node::closeDocument);
+        }
+    }
+
+    /**
+     * Reset the displayer for another use, like by another user of a {@link PDFDisplayerPool} : the displayed
+     * document and the documents opened with an id are closed, and the view of the viewer (sidebar, find bar,
+     * locations of the documents) is restored to its default. </br>
+     * The customizations of the displayer (toolbar visibility, listeners, options) are kept.
+     * Can be called from any thread.
+     */
+    public void reset() {
+        getDocumentIds().forEach(this::closeDocument);
+        closeDocument();
+        if (getState().isViewerLoaded()) {
+            webNode.executeScript(mode.getPdfViewerWindowScriptCode() + "resetView();");
+        }
+    }
+
+    /**
+     * Release the resources of the displayer : its document and its viewer. </br>
+     * The displayer can't be used anymore. Can be called from any thread.
+     */
+    public void dispose() {
+        closeDocument();
+        documentSources.clear();
+        documentKeys.clear();
+        pageImageRenderer.cancelAll();
+        pageTextExtractor.cancelAll();
+        final DisplayerState previousState = state.getAndSet(DisplayerState.DISPOSED);
+        publishState();
+        final IWebNode node = webNode;
+        if (node != null && previousState != DisplayerState.DISPOSED) {
+            runOnFxThread(node::dispose);
+            activeViewerCount.decrementAndGet();
+        }
+
+        final ViewerCommandQueue discardedCommands = deferredCommands.getAndSet(ViewerCommandQueue.CLOSED);
+        if (discardedCommands != null) {
+            deferredOperationCount.addAndGet(-discardedCommands.size());
+        }
+    }
+
+    /**
+     * Method called when the viewer sends an event
+     * @param name  Name of the event
+     * @param value Value of the event
+     */
+    private void onViewerEvent(final String name, final String value) {
+        try {
+            switch (name) {
+                case "pagechanging" -> currentPageProperty.set(Integer.parseInt(value));
+                case "pagesloaded" -> pageCountProperty.set(Integer.parseInt(value));
+                case "documentloaded" -> {
+                    changeState(DisplayerState.SHOWN, DisplayerState.DOCUMENT_LOADING);
+                    documentLoadedProperty.set(true);
+                }
+                case "pagerendered" -> {
+                    lastRenderedPageProperty.set(Integer.parseInt(value));
+                    if (getLoadingStage() == LoadingStage.RENDER) {
+                        setLoadingStage(LoadingStage.DONE, 1);
+                    }
+                }
+                case "transferprogress" -> setLoadingStage(LoadingStage.TRANSFER, Double.parseDouble(value));
+                case "documentopening" -> setLoadingStage(LoadingStage.PARSE, -1);
+                case "documenterror" -> {
+                    log.error("The viewer can't open the document : " + value);
+                    changeState(DisplayerState.READY, DisplayerState.DOCUMENT_LOADING);
+                    setLoadingStage(LoadingStage.IDLE, -1);
+                }
+                case "pagesinit" -> setLoadingStage(LoadingStage.RENDER, -1);
+                case "scalechanging" -> scaleProperty.set(Double.parseDouble(value));
+                case "renderstats" -> renderStatisticsProperty.set(RenderStatistics.parse(value));
+                case "pageimage" -> pageImageRenderer.onMessage(value);
+                case "pagetext" -> pageTextExtractor.onMessage(value);
+                case "viewstate" -> viewState = value;
+                case "documentmissing" -> {
+                    // Document unloaded by the viewer, opened again
+                    final IDocumentSource source = documentSources.get(value);
+                    if (source != null && value.equals(getDisplayedDocumentId())) {
+                        submitLoadingTask(buildLoadingTask(source, getDocumentCache(), value, null));
+                    }
+                }
+                case "workerstarted" -> {
+                    final WorkerStatus status = WorkerStatus.parse(value);
+                    workerStatusProperty.set(status);
+                    Metrics.recordWorkerStartup(status.isWebWorker(), status.getStartupTime());
+                    if (!status.isWebWorker() && !isWorkerDisabled()) {
+                        log.warn("The PDF.js worker isn't available, the documents are parsed on the main thread");
+                    }
+                }
+                default -> log.debug("Unknown viewer event : " + name);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid value for the viewer event " + name + " : " + value);
+        }
+    }
+
+    /**
+     * Update the stage of the loading of the document
+     * @param stage    The stage
+     * @param progress Progress of the stage, between 0 and 1, -1 if indeterminate
+     */
+    private void setLoadingStage(final LoadingStage stage, final double progress) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> setLoadingStage(stage, progress));
+            return;
+        }
+        final LoadingStage previousStage = loadingStageProperty.get();
+        if (stage != previousStage || stage == LoadingStage.FETCH) {
+            measureLoadingStage(previousStage, stage);
+        }
+        loadingStageProperty.set(stage);
+        loadingProgressProperty.set(progress);
+    }
+
+    /**
+     * Measure the loading stages : the previous stage is recorded when a later stage is reached,
+     * and dropped when the loading is cancelled or restarted
+     * @param previousStage The previous stage
+     * @param stage         The new stage
+     */
+    private void measureLoadingStage(final LoadingStage previousStage, final LoadingStage stage) {
+        if (loadingStageProbe != null && stage.compareTo(previousStage) > 0) {
+            loadingStageProbe.end();
+        }
+        loadingStageProbe = stage == LoadingStage.IDLE || stage == LoadingStage.DONE
+                ? null
+                : Metrics.beginLoadStage(stage);
+    }
+
+    /**
+     * Change the state of the displayer, if it is in one of the expected states
+     * @param newState       The new state
+     * @param expectedStates The states from which the state can change
+     * @return The previous state, null if the state isn't changed
+     */
+    private DisplayerState changeState(final DisplayerState newState, final DisplayerState... expectedStates) {
+        final List<DisplayerState> expected = List.of(expectedStates);
+        DisplayerState currentState = state.get();
+        while (expected.contains(currentState)) {
+            if (state.compareAndSet(currentState, newState)) {
+                if (currentState != newState) {
+                    publishState();
+                }
+                return currentState;
+            }
+            currentState = state.get();
+        }
+        return null;
+    }
+
+    /**
+     * Change the id of the displayed document, published to its property on the JavaFX thread
+     * @param id The id, null if the document isn't opened with an id
+     */
+    private void setDisplayedDocumentId(final String id) {
+        displayedDocumentId = id;
+        runOnFxThread(() -> displayedDocumentIdProperty.set(displayedDocumentId));
+    }
+
+    /**
+     * Publish the current state to the state property, on the JavaFX thread
+     */
+    private void publishState() {
+        runOnFxThread(() -> stateProperty.set(state.get()));
+    }
+
+    /**
+     * Run an operation on the JavaFX thread : immediately if called from it, later otherwise
+     * @param operation The operation
+     */
+    private static void runOnFxThread(final Runnable operation) {
+        if (Platform.isFxApplicationThread()) {
+            operation.run();
+        }
+        else {
+            Platform.runLater(operation);
+        }
+    }
+
+    /**
+     * Provide the node which display the web content
+     * @return The node which display the web content
+     * @throws IllegalStateException If the displayer is disposed before the creation of its node
+     */
+    public Parent toNode() {
+        if (state.compareAndSet(DisplayerState.CREATED, DisplayerState.VIEWER_LOADING)) {
+            publishState();
+            webNode = createWebNode();
+            runPendingWebNodeOperations();
+        }
+        if (webNode == null) {
+            throw new IllegalStateException("Displayer disposed");
+        }
+        return webNode.toNode();
+    }
+
+    public PdfJSVersion getVersion() {
+        return version;
+    }
+
+    /**
+     * Provide the time taken by the viewer to load, from the creation of its node
+     * @return The loading duration of the viewer, empty while the viewer is not loaded
+     */
+    public Optional<Duration> getViewerLoadingDuration() {
+        return webNode == null ? Optional.empty() : webNode.getViewerLoadingDuration();
+    }
+
+    public Consumer<Task<?>> getOnLoaderTaskPresentProperty() {
+        return onLoaderTaskPresentProperty.get();
+    }
+
+    public void setOnLoaderTaskPresentProperty(Consumer<Task<?>> onLoaderTaskPresentProperty) {
+        this.onLoaderTaskPresentProperty.set(onLoaderTaskPresentProperty);
+    }
+
+    public ObjectProperty<Consumer<Task<?>>> onLoaderTaskPresentProperty() {
         return onLoaderTaskPresentProperty;
     }
+
+    public int getCurrentPage() {
+        return currentPageProperty.get();
+    }
+
+    public ReadOnlyIntegerProperty currentPageProperty() {
+        return currentPageProperty.getReadOnlyProperty();
+    }
+
+    public int getPageCount() {
+        return pageCountProperty.get();
+    }
+
+    public ReadOnlyIntegerProperty pageCountProperty() {
+        return pageCountProperty.getReadOnlyProperty();
+    }
+
+    public boolean isDocumentLoaded() {
+        return documentLoadedProperty.get();
+    }
+
+    public ReadOnlyBooleanProperty documentLoadedProperty() {
+        return documentLoadedProperty.getReadOnlyProperty();
+    }
+
+    public int getLastRenderedPage() {
+        return lastRenderedPageProperty.get();
+    }
+
+    public ReadOnlyIntegerProperty lastRenderedPageProperty() {
+        return lastRenderedPageProperty.getReadOnlyProperty();
+    }
+
+    public double getScale() {
+        return scaleProperty.get();
+    }
+
+    public ReadOnlyDoubleProperty scaleProperty() {
+        return scaleProperty.getReadOnlyProperty();
+    }
+
+    /**
+     * Provide the state of the lifecycle of the displayer, up to date from any thread
+     * @return The state
+     */
+    public DisplayerState getState() {
+        return state.get();
+    }
+
+    /**
+     * Provide the state of the lifecycle of the displayer, updated on the JavaFX thread
+     * @return The state property
+     */
+    public ReadOnlyObjectProperty<DisplayerState> stateProperty() {
+        return stateProperty.getReadOnlyProperty();
+    }
+
+    public LoadingStage getLoadingStage() {
+        return loadingStageProperty.get();
+    }
+
+    public ReadOnlyObjectProperty<LoadingStage> loadingStageProperty() {
+        return loadingStageProperty.getReadOnlyProperty();
+    }
+
+    public double getLoadingProgress() {
+        return loadingProgressProperty.get();
+    }
+
+    public ReadOnlyDoubleProperty loadingProgressProperty() {
+        return loadingProgressProperty.getReadOnlyProperty();
+    }
+
+    public RenderStatistics getRenderStatistics() {
+        return renderStatisticsProperty.get();
+    }
+
+    public ReadOnlyObjectProperty<RenderStatistics> renderStatisticsProperty() {
+        return renderStatisticsProperty.getReadOnlyProperty();
+    }
+
+    public int getMaxRetainedDocuments() {
+        return maxRetainedDocumentsProperty.get();
+    }
+
+    public void setMaxRetainedDocuments(int maxRetainedDocuments) {
+        this.maxRetainedDocumentsProperty.set(maxRetainedDocuments);
+    }
+
+    public IntegerProperty maxRetainedDocumentsProperty() {
+        return maxRetainedDocumentsProperty;
+    }
+
+    /**
+     * Provide the id of the displayed document, up to date from any thread
+     * @return The id, null if the document wasn't opened with an id
+     */
+    public String getDisplayedDocumentId() {
+        return displayedDocumentId;
+    }
+
+    /**
+     * Provide the id of the displayed document, updated on the JavaFX thread
+     * @return The id property
+     */
+    public ReadOnlyStringProperty displayedDocumentIdProperty() {
+        return displayedDocumentIdProperty.getReadOnlyProperty();
+    }
+
+    public WorkerStatus getWorkerStatus() {
+        return workerStatusProperty.get();
+    }
+
+    public ReadOnlyObjectProperty<WorkerStatus> workerStatusProperty() {
+        return workerStatusProperty.getReadOnlyProperty();
+    }
+
+    public DocumentCache getDocumentCache() {
+        return documentCacheProperty.get();
+    }
+
+    public void setDocumentCache(DocumentCache documentCache) {
+        this.documentCacheProperty.set(documentCache);
+    }
+
+    public ObjectProperty<DocumentCache> documentCacheProperty() {
+        return documentCacheProperty;
+    }
+
+    public PageImageCache getPageImageCache() {
+        return pageImageCacheProperty.get();
+    }
+
+    public void setPageImageCache(PageImageCache pageImageCache) {
+        this.pageImageCacheProperty.set(pageImageCache);
+    }
+
+    public ObjectProperty<PageImageCache> pageImageCacheProperty() {
+        return pageImageCacheProperty;
+    }
+
+    public boolean isRangeLoading() {
+        return rangeLoadingProperty.get();
+    }
+
+    public void setRangeLoading(boolean rangeLoading) {
+        this.rangeLoadingProperty.set(rangeLoading);
+    }
+
+    public BooleanProperty rangeLoadingProperty() {
+        return rangeLoadingProperty;
+    }
+
+    public String getWorkerSrc() {
+        return workerSrcProperty.get();
+    }
+
+    public void setWorkerSrc(String workerSrc) {
+        this.workerSrcProperty.set(workerSrc);
+    }
+
+    public StringProperty workerSrcProperty() {
+        return workerSrcProperty;
+    }
+
+    public ViewerOptions getViewerOptions() {
+        return viewerOptionsProperty.get();
+    }
+
+    public void setViewerOptions(ViewerOptions viewerOptions) {
+        this.viewerOptionsProperty.set(viewerOptions);
+    }
+
+    public ObjectProperty<ViewerOptions> viewerOptionsProperty() {
+        return viewerOptionsProperty;
+    }
+
+    public boolean isWorkerDisabled() {
+        return workerDisabledProperty.get();
+    }
+
+    public void setWorkerDisabled(boolean workerDisabled) {
+        this.workerDisabledProperty.set(workerDisabled);
+    }
+
+    public BooleanProperty workerDisabledProperty() {
+        return workerDisabledProperty;
+    }
+
+    public boolean isWorkerShared() {
+        return workerSharedProperty.get();
+    }
+
+    public void setWorkerShared(boolean workerShared) {
+        this.workerSharedProperty.set(workerShared);
+    }
+
+    public BooleanProperty workerSharedProperty() {
+        return workerSharedProperty;
+    }
 }
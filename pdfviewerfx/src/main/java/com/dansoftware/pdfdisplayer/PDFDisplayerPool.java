@@ -0,0 +1,236 @@
+package com.dansoftware.pdfdisplayer;
+
+import javafx.application.Platform;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of displayers whose viewer is created and loaded in advance, for each version of PDF.js. </br>
+ * Acquiring a displayer returns a displayer whose viewer is already loaded, released displayers are reset
+ * with {@link PDFDisplayer#reset()} and reused. Idle displayers above the minimal count are disposed after the
+ * idle timeout. </br>
+ * The pool must be used from the JavaFX thread. The customizations of a displayer (toolbar visibility,
+ * listeners) aren't reset on release. In JPro mode, the viewer of a displayer is only loaded once the displayer
+ * is displayed in a session.
+ */
+@Log4j2
+public class PDFDisplayerPool implements AutoCloseable {
+
+    /**
+     * Minimal count of idle displayers, for each version
+     */
+    private final int minIdle;
+
+    /**
+     * Maximal count of idle displayers, for each version. The displayers released above are disposed.
+     */
+    private final int maxIdle;
+
+    /**
+     * Time after which an idle displayer above the minimal count is disposed
+     */
+    private final Duration idleTimeout;
+
+    /**
+     * Idle displayers of each version, from the least to the most recently released
+     */
+    private final Map<PdfJSVersion, Deque<IdleDisplayer>> idleDisplayers = new EnumMap<>(PdfJSVersion.class);
+
+    /**
+     * Executor triggering the eviction of the idle displayers
+     */
+    private final ScheduledExecutorService evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread t = new Thread(runnable, "pdfdisplayer-pool-eviction");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Whether the pool is closed
+     */
+    private boolean closed;
+
+    /**
+     * Constructor
+     * @param minIdle     Minimal count of idle displayers, for each version
+     * @param maxIdle     Maximal count of idle displayers, for each version
+     * @param idleTimeout Time after which an idle displayer above the minimal count is disposed
+     */
+    public PDFDisplayerPool(final int minIdle, final int maxIdle, final Duration idleTimeout) {
+        if (minIdle < 0 || maxIdle < minIdle) {
+            throw new IllegalArgumentException("Invalid pool size : minIdle=" + minIdle + ", maxIdle=" + maxIdle);
+        }
+        this.minIdle = minIdle;
+        this.maxIdle = maxIdle;
+        this.idleTimeout = idleTimeout;
+
+        final long period = Math.max(1000, idleTimeout.toMillis());
+        evictionExecutor.scheduleAtFixedRate(() -> Platform.runLater(this::evictIdleDisplayers),
+                period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create the minimal count of idle displayers of some versions, in the background. Can be called from any thread.
+     * @param versions The versions of PDF.js
+     */
+    public void prewarm(final PdfJSVersion... versions) {
+        Platform.runLater(() -> {
+            for (final PdfJSVersion version : versions) {
+                refill(version);
+            }
+        });
+    }
+
+    /**
+     * Acquire a displayer of the latest version of PDF.js
+     * @return The displayer
+     */
+    public PDFDisplayer acquire() {
+        return acquire(PdfJSVersion.latest());
+    }
+
+    /**
+     * Acquire a displayer. </br>
+     * Returns an idle displayer if any, or a new one. The idle displayers are then refilled in the background.
+     * @param version The version of PDF.js
+     * @return The displayer
+     */
+    public PDFDisplayer acquire(final PdfJSVersion version) {
+        checkFxThread();
+
+        final IdleDisplayer idleDisplayer = idleDisplayers(version).pollLast();
+        final PDFDisplayer displayer = idleDisplayer != null ? idleDisplayer.displayer : createDisplayer(version);
+
+        if (!closed) {
+            Platform.runLater(() -> refill(version));
+        }
+        return displayer;
+    }
+
+    /**
+     * Release a displayer acquired from the pool. Its documents are closed and its view reset, and it is reused
+     * or disposed. </br>
+     * The node of the displayer must have been removed from its parent.
+     * @param displayer The displayer
+     */
+    public void release(final PDFDisplayer displayer) {
+        checkFxThread();
+
+        final Deque<IdleDisplayer> displayers = idleDisplayers(displayer.getVersion());
+        if (closed || displayers.size() >= maxIdle) {
+            displayer.dispose();
+            return;
+        }
+
+        displayer.reset();
+        displayers.addLast(new IdleDisplayer(displayer, System.nanoTime()));
+    }
+
+    /**
+     * Provide the count of idle displayers of a version
+     * @param version The version of PDF.js
+     * @return The count of idle displayers
+     */
+    public int getIdleCount(final PdfJSVersion version) {
+        return idleDisplayers(version).size();
+    }
+
+    /**
+     * Close the pool, disposing the idle displayers. The displayers released afterwards are disposed.
+     */
+    @Override
+    public void close() {
+        evictionExecutor.shutdownNow();
+        Platform.runLater(() -> {
+            closed = true;
+            idleDisplayers.values().forEach(displayers -> displayers.forEach(idle -> idle.displayer.dispose()));
+            idleDisplayers.clear();
+        });
+    }
+
+    /**
+     * Create idle displayers up to the minimal count
+     * @param version The version of PDF.js
+     */
+    private void refill(final PdfJSVersion version) {
+        final Deque<IdleDisplayer> displayers = idleDisplayers(version);
+        while (!closed && displayers.size() < minIdle) {
+            displayers.addFirst(new IdleDisplayer(createDisplayer(version), System.nanoTime()));
+        }
+    }
+
+    /**
+     * Dispose the idle displayers above the minimal count, idle for longer than the idle timeout
+     */
+    private void evictIdleDisplayers() {
+        final long now = System.nanoTime();
+        for (final Deque<IdleDisplayer> displayers : idleDisplayers.values()) {
+            while (displayers.size() > minIdle && now - displayers.peekFirst().idleSince > idleTimeout.toNanos()) {
+                displayers.pollFirst().displayer.dispose();
+                log.debug("Idle displayer disposed");
+            }
+        }
+    }
+
+    /**
+     * Create a displayer, loading its viewer
+     * @param version The version of PDF.js
+     * @return The displayer
+     */
+    private static PDFDisplayer createDisplayer(final PdfJSVersion version) {
+        final PDFDisplayer displayer = new PDFDisplayer(version);
+        displayer.toNode();
+        return displayer;
+    }
+
+    /**
+     * Provide the idle displayers of a version
+     * @param version The version of PDF.js
+     * @return The idle displayers
+     */
+    private Deque<IdleDisplayer> idleDisplayers(final PdfJSVersion version) {
+        return idleDisplayers.computeIfAbsent(version, v -> new ArrayDeque<>());
+    }
+
+    /**
+     * Check that the current thread is the JavaFX thread
+     */
+    private static void checkFxThread() {
+        if (!Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("The pool must be used from the JavaFX thread");
+        }
+    }
+
+    /**
+     * Displayer waiting in the pool
+     */
+    private static class IdleDisplayer {
+        /**
+         * The displayer
+         */
+        private final PDFDisplayer displayer;
+
+        /**
+         * Time of the release of the displayer, in nanoseconds
+         */
+        private final long idleSince;
+
+        /**
+         * Constructor
+         * @param displayer The displayer
+         * @param idleSince Time of the release of the displayer, in nanoseconds
+         */
+        IdleDisplayer(final PDFDisplayer displayer, final long idleSince) {
+            this.displayer = displayer;
+            this.idleSince = idleSince;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.dansoftware.pdfdisplayer;
+
+import com.dansoftware.pdfdisplayer.mode.IWebNode;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renderer of page images by the viewer. </br>
+ * The viewer renders the pages one at a time in a canvas and sends them in PNG, by base64 chunks gathered here
+ * until the end of each image.
+ */
+class PageImageRenderer {
+
+    /**
+     * Renderings requested to the viewer and not ended, by id
+     */
+    private final Map<Integer, Rendering> renderings = new ConcurrentHashMap<>();
+
+    /**
+     * Id of the next rendering
+     */
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Request the rendering of a page of the displayed document
+     * @param webNode                 Web node of the viewer
+     * @param pdfViewerWindowAccessor Script accessing the window of the viewer
+     * @param pageNumber              Number of the page, from 1
+     * @param scale                   Scale of the rendering
+     * @return Future of the image in PNG. Cancelling it abandons the image.
+     */
+    CompletableFuture<byte[]> render(final IWebNode webNode, final String pdfViewerWindowAccessor,
+                                     final int pageNumber, final double scale) {
+        final int id = nextId.incrementAndGet();
+        final Rendering rendering = new Rendering();
+        renderings.put(id, rendering);
+        rendering.result.whenComplete((image, error) -> renderings.remove(id));
+
+        webNode.executeScript(pdfViewerWindowAccessor + "renderPageImage(" + id + ", " + pageNumber + ", " + scale + ");");
+        return rendering.result;
+    }
+
+    /**
+     * Method called when the viewer sends a part of an image
+     * @param message The part : "id,chunk,base64", "id,end," or "id,error,message"
+     * @throws IllegalArgumentException If the message is malformed
+     */
+    void onMessage(final String message) {
+        final int idIndex = message.indexOf(',');
+        final int kindIndex = message.indexOf(',', idIndex + 1);
+        if (idIndex < 0 || kindIndex < 0) {
+            throw new IllegalArgumentException("Malformed page image message");
+        }
+
+        final Rendering rendering = renderings.get(Integer.parseInt(message.substring(0, idIndex)));
+        if (rendering == null) {
+            // Abandoned image
+            return;
+        }
+
+        final String kind = message.substring(idIndex + 1, kindIndex);
+        switch (kind) {
+            case "chunk" -> rendering.bytes.writeBytes(Base64.getDecoder().decode(message.substring(kindIndex + 1)));
+            case "end" -> rendering.result.complete(rendering.bytes.toByteArray());
+            case "error" -> rendering.result.completeExceptionally(
+                    new IllegalStateException("Can't render the page image : " + message.substring(kindIndex + 1)));
+            default -> throw new IllegalArgumentException("Unknown page image message : " + kind);
+        }
+    }
+
+    /**
+     * Fail the renderings not ended, the viewer being disposed
+     */
+    void cancelAll() {
+        List.copyOf(renderings.values()).forEach(rendering ->
+                rendering.result.completeExceptionally(new IllegalStateException("Viewer disposed")));
+    }
+
+    /**
+     * Rendering of an image in progress
+     */
+    private static class Rendering {
+        /**
+         * Parts of the image received
+         */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        /**
+         * Future of the image
+         */
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,114 @@
+package com.dansoftware.pdfdisplayer;
+
+import com.dansoftware.pdfdisplayer.mode.IWebNode;
+import com.dansoftware.pdfdisplayer.text.PageText;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Extractor of the text of the pages by the viewer. </br>
+ * The viewer extracts the pages one after the other and sends the text of each page as soon as it is extracted.
+ */
+class PageTextExtractor {
+
+    /**
+     * Extractions requested to the viewer and not ended, by id
+     */
+    private final Map<Integer, Extraction> extractions = new ConcurrentHashMap<>();
+
+    /**
+     * Id of the next extraction
+     */
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Request the extraction of the text of the displayed document
+     * @param webNode                 Web node of the viewer
+     * @param pdfViewerWindowAccessor Script accessing the window of the viewer
+     * @param onPageExtracted         Consumer of the text of each page, as soon as it is extracted
+     * @return Future of the text of all the pages. Cancelling it abandons the extraction.
+     */
+    CompletableFuture<List<PageText>> extract(final IWebNode webNode, final String pdfViewerWindowAccessor,
+                                              final Consumer<PageText> onPageExtracted) {
+        final int id = nextId.incrementAndGet();
+        final Extraction extraction = new Extraction(onPageExtracted);
+        extractions.put(id, extraction);
+        extraction.result.whenComplete((pages, error) -> extractions.remove(id));
+
+        webNode.executeScript(pdfViewerWindowAccessor + "extractText(" + id + ");");
+        return extraction.result;
+    }
+
+    /**
+     * Method called when the viewer sends the text of a page or the end of an extraction
+     * @param message The message : "id,page,text", "id,end,pageCount" or "id,error,message"
+     * @throws IllegalArgumentException If the message is malformed
+     */
+    void onMessage(final String message) {
+        final int idIndex = message.indexOf(',');
+        final int kindIndex = message.indexOf(',', idIndex + 1);
+        if (idIndex < 0 || kindIndex < 0) {
+            throw new IllegalArgumentException("Malformed page text message");
+        }
+
+        final Extraction extraction = extractions.get(Integer.parseInt(message.substring(0, idIndex)));
+        if (extraction == null) {
+            // Abandoned extraction
+            return;
+        }
+
+        final String kind = message.substring(idIndex + 1, kindIndex);
+        final String data = message.substring(kindIndex + 1);
+        switch (kind) {
+            case "end" -> extraction.result.complete(Collections.unmodifiableList(extraction.pages));
+            case "error" -> extraction.result.completeExceptionally(
+                    new IllegalStateException("Can't extract the text : " + data));
+            default -> {
+                final PageText page = new PageText(Integer.parseInt(kind), data);
+                extraction.pages.add(page);
+                if (extraction.onPageExtracted != null) {
+                    extraction.onPageExtracted.accept(page);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fail the extractions not ended, the viewer being disposed
+     */
+    void cancelAll() {
+        List.copyOf(extractions.values()).forEach(extraction ->
+                extraction.result.completeExceptionally(new IllegalStateException("Viewer disposed")));
+    }
+
+    /**
+     * Extraction in progress
+     */
+    private static class Extraction {
+        /**
+         * Consumer of the text of each page, null if none
+         */
+        private final Consumer<PageText> onPageExtracted;
+
+        /**
+         * Text of the pages received
+         */
+        private final List<PageText> pages = new ArrayList<>();
+
+        /**
+         * Future of the text of all the pages
+         */
+        private final CompletableFuture<List<PageText>> result = new CompletableFuture<>();
+
+        Extraction(final Consumer<PageText> onPageExtracted) {
+            this.onPageExtracted = onPageExtracted;
+        }
+    }
+}
@@ -5,8 +5,8 @@ import lombok.Getter;
 
 @AllArgsConstructor
 public enum PdfJSVersion {
-    V_2_2_228("/pdfjs_2.2.228", "web/viewer.html"),
-    V_2_7_570("/pdfjs_2.7.570", "web/viewer.html");
+    V_2_2_228("/pdfjs_2.2.228", "web/viewer.html", "build/pdf.worker.js"),
+    V_2_7_570("/pdfjs_2.7.570", "web/viewer.html", "build/pdf.worker.js");
 
     @Getter
     private final String rootPath;
@@ -14,6 +14,12 @@ public enum PdfJSVersion {
     @Getter
     private final String htmlViewer;
 
+    /**
+     * Path of the script of the PDF.js worker, from the root path. The viewer loads it by default.
+     */
+    @Getter
+    private final String workerPath;
+
     public static PdfJSVersion latest() {
         return V_2_7_570;
     }
@@ -0,0 +1,160 @@
+package com.dansoftware.pdfdisplayer;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Summary of the rendering of the viewer, measured by PDF.js inside the WebView or the browser. </br>
+ * Each summary covers the renderings since the previous summary, sent every few seconds while the viewer is active.
+ */
+@Builder
+@Getter
+public class RenderStatistics {
+
+    /**
+     * Fingerprint of the displayed document computed by PDF.js, empty if no document is displayed
+     */
+    private final String documentFingerprint;
+
+    /**
+     * Number of pages rendered
+     */
+    private final int renderCount;
+
+    /**
+     * Total time taken to render the pages, in milliseconds
+     */
+    private final long renderTime;
+
+    /**
+     * Longest rendering of a page, in milliseconds
+     */
+    private final long maxRenderTime;
+
+    /**
+     * Number of text layers built, after the rendering of their page
+     */
+    private final int textLayerCount;
+
+    /**
+     * Total time taken to build the text layers, in milliseconds
+     */
+    private final long textLayerTime;
+
+    /**
+     * Longest building of a text layer, in milliseconds
+     */
+    private final long maxTextLayerTime;
+
+    /**
+     * Memory of the canvases of the rendered pages at the time of the summary, in bytes
+     */
+    private final long canvasMemory;
+
+    /**
+     * Number of frames displayed while scrolling
+     */
+    private final int frameCount;
+
+    /**
+     * Total duration of the frames displayed while scrolling, in milliseconds
+     */
+    private final long frameTime;
+
+    /**
+     * Longest frame displayed while scrolling, in milliseconds
+     */
+    private final long maxFrameTime;
+
+    /**
+     * Number of frames longer than 50 ms displayed while scrolling
+     */
+    private final int longFrameCount;
+
+    /**
+     * Rendering time of the slowest pages in milliseconds, by page number, the slowest first
+     */
+    private final Map<Integer, Long> slowestPages;
+
+    /**
+     * Provide the average rendering time of a page
+     * @return The average in milliseconds, 0 if no page was rendered
+     */
+    public double getAverageRenderTime() {
+        return renderCount == 0 ? 0 : (double) renderTime / renderCount;
+    }
+
+    /**
+     * Provide the average building time of a text layer
+     * @return The average in milliseconds, 0 if no text layer was built
+     */
+    public double getAverageTextLayerTime() {
+        return textLayerCount == 0 ? 0 : (double) textLayerTime / textLayerCount;
+    }
+
+    /**
+     * Provide the average duration of the frames displayed while scrolling
+     * @return The average in milliseconds, 0 if there was no scrolling
+     */
+    public double getAverageFrameTime() {
+        return frameCount == 0 ? 0 : (double) frameTime / frameCount;
+    }
+
+    /**
+     * Read a summary sent by the viewer, formatted as
+     * "fingerprint,renders,renderTime,maxRenderTime,textLayers,textLayerTime,maxTextLayerTime,canvasMemory,
+     * frames,frameTime,maxFrameTime,longFrames;page:renderTime,..."
+     * @param summary The summary
+     * @return The statistics
+     * @throws IllegalArgumentException If the summary is malformed
+     */
+    static RenderStatistics parse(final String summary) {
+        final int pagesIndex = summary.indexOf(';');
+        final String[] values = (pagesIndex < 0 ? summary : summary.substring(0, pagesIndex)).split(",", -1);
+        if (values.length != 12) {
+            throw new IllegalArgumentException("Malformed render statistics : " + summary);
+        }
+
+        final Map<Integer, Long> slowestPages = new LinkedHashMap<>();
+        if (pagesIndex >= 0 && pagesIndex < summary.length() - 1) {
+            for (final String page : summary.substring(pagesIndex + 1).split(",")) {
+                final int separatorIndex = page.indexOf(':');
+                if (separatorIndex < 0) {
+                    throw new IllegalArgumentException("Malformed render statistics : " + summary);
+                }
+                slowestPages.put(Integer.parseInt(page.substring(0, separatorIndex)),
+                        Long.parseLong(page.substring(separatorIndex + 1)));
+            }
+        }
+
+        return RenderStatistics.builder()
+                .documentFingerprint(values[0])
+                .renderCount(Integer.parseInt(values[1]))
+                .renderTime(Long.parseLong(values[2]))
+                .maxRenderTime(Long.parseLong(values[3]))
+                .textLayerCount(Integer.parseInt(values[4]))
+                .textLayerTime(Long.parseLong(values[5]))
+                .maxTextLayerTime(Long.parseLong(values[6]))
+                .canvasMemory(Long.parseLong(values[7]))
+                .frameCount(Integer.parseInt(values[8]))
+                .frameTime(Long.parseLong(values[9]))
+                .maxFrameTime(Long.parseLong(values[10]))
+                .longFrameCount(Integer.parseInt(values[11]))
+                .slowestPages(Collections.unmodifiableMap(slowestPages))
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        return "document=" + documentFingerprint + ", renders=" + renderCount + ", renderTime=" + renderTime
+                + ", maxRenderTime=" + maxRenderTime + ", textLayers=" + textLayerCount
+                + ", textLayerTime=" + textLayerTime + ", maxTextLayerTime=" + maxTextLayerTime
+                + ", canvasMemory=" + canvasMemory + ", frames=" + frameCount + ", frameTime=" + frameTime
+                + ", maxFrameTime=" + maxFrameTime + ", longFrames=" + longFrameCount
+                + ", slowestPages=" + slowestPages;
+    }
+}
@@ -0,0 +1,141 @@
+package com.dansoftware.pdfdisplayer;
+
+/**
+ * Command sent to the viewer. </br>
+ * The typed commands are run by the dispatcher of the viewer from their JSON form. While deferred, the commands
+ * with the same target are coalesced : only the last one is sent. The scripts are executed as they are.
+ */
+final class ViewerCommand {
+
+    /**
+     * Name of the command for the dispatcher, null for a script
+     */
+    private final String name;
+
+    /**
+     * Key of the coalescing of the command, null if the command isn't coalesced
+     */
+    private final String coalescingKey;
+
+    /**
+     * JSON form of the typed command, or code of the script
+     */
+    private final String payload;
+
+    private ViewerCommand(final String name, final String coalescingKey, final String payload) {
+        this.name = name;
+        this.coalescingKey = coalescingKey;
+        this.payload = payload;
+    }
+
+    /**
+     * Build a command showing or hiding an element of the viewer
+     * @param selector CSS selector of the element, like "#print"
+     * @param visible  Whether the element is visible
+     * @return The command
+     */
+    static ViewerCommand visibility(final String selector, final boolean visible) {
+        return typed("visibility", selector, String.valueOf(visible));
+    }
+
+    /**
+     * Build a command displaying a page
+     * @param pageNumber Number of the page, from 1
+     * @return The command
+     */
+    static ViewerCommand navigate(final int pageNumber) {
+        return typed("navigate", null, String.valueOf(pageNumber));
+    }
+
+    /**
+     * Build a command changing the zoom
+     * @param scaleValue Scale, like "1.5", or zoom mode : "auto", "page-actual", "page-fit" or "page-width"
+     * @return The command
+     */
+    static ViewerCommand zoom(final String scaleValue) {
+        return typed("zoom", null, toJsonString(scaleValue));
+    }
+
+    /**
+     * Build a command executing a script, never coalesced
+     * @param code Code of the script
+     * @return The command
+     */
+    static ViewerCommand script(final String code) {
+        return new ViewerCommand(null, null, code);
+    }
+
+    /**
+     * Build a typed command
+     * @param name   Name of the command
+     * @param target Target of the command, null if the command has no target
+     * @param value  JSON value of the command
+     * @return The command
+     */
+    private static ViewerCommand typed(final String name, final String target, final String value) {
+        final String coalescingKey = target == null ? name : name + ":" + target;
+        final String json = target == null
+                ? "{\"c\":\"" + name + "\",\"v\":" + value + "}"
+                : "{\"c\":\"" + name + "\",\"t\":" + toJsonString(target) + ",\"v\":" + value + "}";
+        return new ViewerCommand(name, coalescingKey, json);
+    }
+
+    /**
+     * Provide the JSON literal of a string
+     * @param value The string
+     * @return The quoted and escaped string
+     */
+    static String toJsonString(final String value) {
+        final StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                // Line separators and '<' are escaped to keep the literal valid in a script and in a page
+                case '\u2028', '\u2029', '<' -> json.append(String.format("\\u%04x", (int) c));
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * Provide whether the command is a script
+     * @return True for a script, false for a typed command
+     */
+    boolean isScript() {
+        return name == null;
+    }
+
+    /**
+     * Provide the key of the coalescing of the command
+     * @return The key, null if the command isn't coalesced
+     */
+    String getCoalescingKey() {
+        return coalescingKey;
+    }
+
+    /**
+     * Provide the JSON form of the typed command, or the code of the script
+     * @return The payload
+     */
+    String getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return isScript() ? "script(" + payload.length() + " chars)" : payload;
+    }
+}
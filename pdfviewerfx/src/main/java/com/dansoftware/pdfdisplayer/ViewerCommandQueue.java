@@ -0,0 +1,147 @@
+package com.dansoftware.pdfdisplayer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable queue of commands deferred until the viewer is loaded, to be swapped atomically. </br>
+ * The queue is a list linked from its last command, a command being added without copying the queue. The commands
+ * are coalesced when the scripts are built : a command replaces the previous commands with the same target,
+ * and takes the place of the last one.
+ */
+final class ViewerCommandQueue {
+
+    /**
+     * Empty queue
+     */
+    static final ViewerCommandQueue EMPTY = new ViewerCommandQueue(null, null);
+
+    /**
+     * Queue of a disposed viewer, discarding the commands. Compared by identity.
+     */
+    static final ViewerCommandQueue CLOSED = new ViewerCommandQueue(null, null);
+
+    /**
+     * Maximal length of a script running the commands, beyond which the commands are split into several scripts
+     */
+    private static final int MAX_SCRIPT_LENGTH = 256 * 1024;
+
+    /**
+     * Last queued command, null if the queue is empty
+     */
+    private final ViewerCommand command;
+
+    /**
+     * Queue of the previous commands, null if the queue is empty
+     */
+    private final ViewerCommandQueue previous;
+
+    /**
+     * Number of queued commands, before their coalescing
+     */
+    private final int size;
+
+    private ViewerCommandQueue(final ViewerCommand command, final ViewerCommandQueue previous) {
+        this.command = command;
+        this.previous = previous;
+        this.size = previous == null ? 0 : previous.size + 1;
+    }
+
+    /**
+     * Provide the queue with a command added
+     * @param command The command
+     * @return The new queue, this queue being unchanged
+     */
+    ViewerCommandQueue with(final ViewerCommand command) {
+        return new ViewerCommandQueue(command, this);
+    }
+
+    /**
+     * Provide the number of queued commands, before their coalescing
+     * @return The number of commands
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Provide whether the queue has no command
+     * @return True if the queue is empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Build the scripts running the queued commands, once coalesced
+     * @param pdfViewerWindowAccessor Script accessing the window of the viewer
+     * @return The scripts, in the order of the commands
+     */
+    List<String> toScripts(final String pdfViewerWindowAccessor) {
+        return toScripts(coalescedCommands(), pdfViewerWindowAccessor);
+    }
+
+    /**
+     * Provide the queued commands without the commands replaced by a later command with the same target
+     * @return The commands, in their order of execution
+     */
+    private List<ViewerCommand> coalescedCommands() {
+        final List<ViewerCommand> commands = new ArrayList<>(size);
+        final Set<String> coalescingKeys = new HashSet<>();
+        for (ViewerCommandQueue queue = this; queue.size > 0; queue = queue.previous) {
+            final String key = queue.command.getCoalescingKey();
+            if (key == null || coalescingKeys.add(key)) {
+                commands.add(queue.command);
+            }
+        }
+        Collections.reverse(commands);
+        return commands;
+    }
+
+    /**
+     * Build the scripts running commands : the consecutive typed commands are given together to the dispatcher
+     * of the viewer, the scripts are executed as they are
+     * @param commands                The commands
+     * @param pdfViewerWindowAccessor Script accessing the window of the viewer
+     * @return The scripts, in the order of the commands
+     */
+    static List<String> toScripts(final Collection<ViewerCommand> commands, final String pdfViewerWindowAccessor) {
+        final List<String> scripts = new ArrayList<>();
+        final StringBuilder script = new StringBuilder();
+        boolean dispatching = false;
+        for (final ViewerCommand command : commands) {
+            if (script.length() > MAX_SCRIPT_LENGTH) {
+                if (dispatching) {
+                    script.append("]);");
+                    dispatching = false;
+                }
+                scripts.add(script.toString());
+                script.setLength(0);
+            }
+
+            if (command.isScript()) {
+                if (dispatching) {
+                    script.append("]);");
+                    dispatching = false;
+                }
+                script.append(command.getPayload()).append(";\n");
+            }
+            else {
+                script.append(dispatching ? "," : pdfViewerWindowAccessor + "runViewerCommands([");
+                script.append(command.getPayload());
+                dispatching = true;
+            }
+        }
+        if (dispatching) {
+            script.append("]);");
+        }
+        if (script.length() > 0) {
+            scripts.add(script.toString());
+        }
+        return scripts;
+    }
+}
@@ -0,0 +1,204 @@
+package com.dansoftware.pdfdisplayer;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+
+/**
+ * Tuning options of the PDF.js viewer, applied once when the viewer is loaded, before its initialization. </br>
+ * An option left null keeps the default of PDF.js. The profiles {@link #LOW_MEMORY}, {@link #FAST_SCROLL} and
+ * {@link #HIGH_FIDELITY} can be adjusted with {@link #toBuilder()}.
+ */
+@Builder(toBuilder = true)
+@Getter
+public class ViewerOptions {
+
+    /**
+     * Options of PDF.js, unchanged
+     */
+    public static final ViewerOptions DEFAULT = ViewerOptions.builder().build();
+
+    /**
+     * Profile capping the memory of the viewer, like on a kiosk terminal : few rendered pages kept, small canvases
+     * scaled by CSS when zooming, only the displayed parts of the documents fetched, no rendering of the thumbnails
+     */
+    public static final ViewerOptions LOW_MEMORY = ViewerOptions.builder()
+            .pageViewBufferSize(3)
+            .maxCanvasPixels(4_194_304)
+            .textLayerMode(TextLayerMode.ENABLE)
+            .annotationMode(AnnotationMode.ENABLE)
+            .autoFetchDisabled(true)
+            .streamDisabled(true)
+            .onlyCssZoom(true)
+            .thumbnailRendering(false)
+            .build();
+
+    /**
+     * Profile favouring the scrolling : many rendered pages kept to scroll back without rendering them again,
+     * canvases of moderate size, no thumbnails competing with the pages
+     */
+    public static final ViewerOptions FAST_SCROLL = ViewerOptions.builder()
+            .pageViewBufferSize(20)
+            .maxCanvasPixels(8_388_608)
+            .textLayerMode(TextLayerMode.ENABLE)
+            .annotationMode(AnnotationMode.ENABLE)
+            .thumbnailRendering(false)
+            .build();
+
+    /**
+     * Profile favouring the rendering quality, like on an engineering workstation : large canvases, enhanced text
+     * selection, interactive forms, many rendered pages kept
+     */
+    public static final ViewerOptions HIGH_FIDELITY = ViewerOptions.builder()
+            .pageViewBufferSize(30)
+            .maxCanvasPixels(67_108_864)
+            .textLayerMode(TextLayerMode.ENABLE_ENHANCE)
+            .annotationMode(AnnotationMode.ENABLE_FORMS)
+            .onlyCssZoom(false)
+            .thumbnailRendering(true)
+            .build();
+
+    /**
+     * Name of the parameter of the url of the viewer carrying the options
+     */
+    private static final String URL_PARAMETER = "pdfviewerfx";
+
+    /**
+     * Number of rendered pages kept by the viewer, at least the visible pages. 10 by default in PDF.js.
+     */
+    private final Integer pageViewBufferSize;
+
+    /**
+     * Maximal number of pixels of the canvas of a page, the page being scaled by CSS beyond. -1 for no limit.
+     */
+    private final Integer maxCanvasPixels;
+
+    /**
+     * Rendering of the text layer, used by the text selection and the highlighting of the search results
+     */
+    private final TextLayerMode textLayerMode;
+
+    /**
+     * Rendering of the annotation layer
+     */
+    private final AnnotationMode annotationMode;
+
+    /**
+     * Whether the documents read by the viewer itself are only fetched by the parts it displays.
+     * Requires the streaming to be disabled.
+     */
+    private final Boolean autoFetchDisabled;
+
+    /**
+     * Whether the documents read by the viewer itself aren't streamed
+     */
+    private final Boolean streamDisabled;
+
+    /**
+     * Whether the documents read by the viewer itself aren't fetched by ranges. The documents loaded by ranges
+     * by the displayer still are.
+     */
+    private final Boolean rangeDisabled;
+
+    /**
+     * Whether the zoom only scales the rendered pages by CSS, without rendering them again
+     */
+    private final Boolean onlyCssZoom;
+
+    /**
+     * Whether the thumbnails of the sidebar are rendered. Otherwise they only show the pages rendered by the viewer.
+     */
+    private final Boolean thumbnailRendering;
+
+    /**
+     * Provide the fragment of the url of the viewer carrying the options
+     * @return The fragment, without '#', null if all the options are the defaults of PDF.js
+     */
+    String toUrlFragment() {
+        final StringJoiner appOptions = new StringJoiner(",", "{", "}");
+        appendOption(appOptions, "maxCanvasPixels", maxCanvasPixels);
+        appendOption(appOptions, "textLayerMode", textLayerMode == null ? null : textLayerMode.ordinal());
+        appendOption(appOptions, "renderInteractiveForms",
+                annotationMode == null ? null : annotationMode == AnnotationMode.ENABLE_FORMS);
+        appendOption(appOptions, "disableAutoFetch", autoFetchDisabled);
+        appendOption(appOptions, "disableStream", streamDisabled);
+        appendOption(appOptions, "disableRange", rangeDisabled);
+        appendOption(appOptions, "useOnlyCssZoom", onlyCssZoom);
+
+        final StringJoiner options = new StringJoiner(",", "{", "}");
+        if (appOptions.length() > 2) {
+            options.add("\"appOptions\":" + appOptions);
+        }
+        appendOption(options, "pageViewBufferSize", pageViewBufferSize);
+        appendOption(options, "annotationLayer",
+                annotationMode == null ? null : annotationMode != AnnotationMode.DISABLE);
+        appendOption(options, "thumbnails", thumbnailRendering);
+        return options.length() > 2
+                ? URL_PARAMETER + "=" + URLEncoder.encode(options.toString(), StandardCharsets.UTF_8)
+                : null;
+    }
+
+    /**
+     * Append an option to a JSON object, if defined
+     * @param json  The JSON object
+     * @param name  The name of the option
+     * @param value The value of the option, a number or a boolean. Null if not defined.
+     */
+    private static void appendOption(final StringJoiner json, final String name, final Object value) {
+        if (value != null) {
+            json.add("\"" + name + "\":" + value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "pageViewBufferSize=" + pageViewBufferSize + ", maxCanvasPixels=" + maxCanvasPixels
+                + ", textLayerMode=" + textLayerMode + ", annotationMode=" + annotationMode
+                + ", autoFetchDisabled=" + autoFetchDisabled + ", streamDisabled=" + streamDisabled
+                + ", rangeDisabled=" + rangeDisabled + ", onlyCssZoom=" + onlyCssZoom
+                + ", thumbnailRendering=" + thumbnailRendering;
+    }
+
+    /**
+     * Rendering modes of the text layer, as numbered by PDF.js
+     */
+    public enum TextLayerMode {
+        /**
+         * No text layer : no text selection, no highlighting of the search results
+         */
+        DISABLE,
+
+        /**
+         * Text layer
+         */
+        ENABLE,
+
+        /**
+         * Text layer enhanced for the text selection, slower to render
+         */
+        ENABLE_ENHANCE
+    }
+
+    /**
+     * Rendering modes of the annotation layer
+     */
+    public enum AnnotationMode {
+        /**
+         * No annotation layer : no links, no forms
+         */
+        DISABLE,
+
+        /**
+         * Annotation layer with its links, the forms being rendered in the canvas
+         */
+        ENABLE,
+
+        /**
+         * Annotation layer with its links and its interactive forms
+         */
+        ENABLE_FORMS
+    }
+}
@@ -0,0 +1,111 @@
+package com.dansoftware.pdfdisplayer;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Snapshot of the view of a displayed document, to resume it in another displayer, like the displayer of a
+ * reconnected JPro session. </br>
+ * The snapshot is serializable, and can be encoded in a compact string.
+ */
+@Builder
+@Getter
+public class ViewerSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Key identifying the content of the document, like "sha-256:..."
+     */
+    private final String documentKey;
+
+    /**
+     * Number of the displayed page, from 1
+     */
+    private final int pageNumber;
+
+    /**
+     * Scale, like "1.5", or zoom mode : "auto", "page-actual", "page-fit" or "page-width"
+     */
+    private final String scaleValue;
+
+    /**
+     * Location of the view, with its scroll offset, in the format of the PDF open parameters : "page=3&zoom=150,20,700"
+     */
+    private final String location;
+
+    /**
+     * View of the sidebar as numbered by PDF.js : 0 if closed, 1 for the thumbnails, 2 for the outline,
+     * 3 for the attachments, 4 for the layers
+     */
+    private final int sidebarView;
+
+    /**
+     * Query of the find bar, empty if none
+     */
+    private final String findQuery;
+
+    /**
+     * Read a view state sent by the viewer, formatted as "page,scaleValue,sidebarView;location;findQuery"
+     * @param documentKey Key of the displayed document
+     * @param state       The view state
+     * @return The snapshot
+     * @throws IllegalArgumentException If the view state is malformed
+     */
+    static ViewerSnapshot parse(final String documentKey, final String state) {
+        final String[] parts = state.split(";", 3);
+        final String[] values = parts[0].split(",", -1);
+        if (parts.length != 3 || values.length != 3) {
+            throw new IllegalArgumentException("Malformed view state : " + state);
+        }
+
+        return ViewerSnapshot.builder()
+                .documentKey(documentKey)
+                .pageNumber(Integer.parseInt(values[0]))
+                .scaleValue(values[1])
+                .sidebarView(Integer.parseInt(values[2]))
+                .location(parts[1])
+                .findQuery(parts[2])
+                .build();
+    }
+
+    /**
+     * Encode the snapshot in a compact string, like to keep it in the browser of a JPro session
+     * @return The encoded snapshot
+     * @see #decode(String)
+     */
+    public String encode() {
+        return pageNumber + "," + scaleValue + "," + sidebarView + ";" + location + ";"
+                + URLEncoder.encode(findQuery, StandardCharsets.UTF_8) + ";"
+                + URLEncoder.encode(documentKey, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode a snapshot encoded with {@link #encode()}
+     * @param encodedSnapshot The encoded snapshot
+     * @return The snapshot
+     * @throws IllegalArgumentException If the encoded snapshot is malformed
+     */
+    public static ViewerSnapshot decode(final String encodedSnapshot) {
+        final int keyStart = encodedSnapshot.lastIndexOf(';');
+        final int queryStart = keyStart < 0 ? -1 : encodedSnapshot.lastIndexOf(';', keyStart - 1);
+        if (queryStart < 0) {
+            throw new IllegalArgumentException("Malformed snapshot : " + encodedSnapshot);
+        }
+
+        return parse(URLDecoder.decode(encodedSnapshot.substring(keyStart + 1), StandardCharsets.UTF_8),
+                encodedSnapshot.substring(0, queryStart + 1)
+                        + URLDecoder.decode(encodedSnapshot.substring(queryStart + 1, keyStart), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return "document=" + documentKey + ", page=" + pageNumber + ", scale=" + scaleValue + ", location=" + location
+                + ", sidebarView=" + sidebarView + ", findQuery=" + findQuery;
+    }
+}
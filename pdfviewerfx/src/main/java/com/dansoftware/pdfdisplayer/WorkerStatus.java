@@ -0,0 +1,48 @@
+package com.dansoftware.pdfdisplayer;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Status of the PDF.js worker started by the viewer, reported by the viewer when the worker is ready
+ */
+@Builder
+@Getter
+public class WorkerStatus {
+
+    /**
+     * Whether the worker runs in a web worker. False if the worker is disabled,
+     * or if the web workers aren't available and PDF.js fell back to the main thread.
+     */
+    private final boolean webWorker;
+
+    /**
+     * Time taken by the worker to start, including the loading of its script
+     */
+    private final Duration startupTime;
+
+    /**
+     * Read a status sent by the viewer, formatted as "worker|main,startupTime" with the startup time in milliseconds
+     * @param status The status
+     * @return The worker status
+     * @throws IllegalArgumentException If the status is malformed
+     */
+    static WorkerStatus parse(final String status) {
+        final String[] values = status.split(",", -1);
+        if (values.length != 2 || !("worker".equals(values[0]) || "main".equals(values[0]))) {
+            throw new IllegalArgumentException("Malformed worker status : " + status);
+        }
+
+        return WorkerStatus.builder()
+                .webWorker("worker".equals(values[0]))
+                .startupTime(Duration.ofMillis(Long.parseLong(values[1])))
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        return (webWorker ? "web worker" : "main thread") + ", startupTime=" + startupTime.toMillis() + " ms";
+    }
+}
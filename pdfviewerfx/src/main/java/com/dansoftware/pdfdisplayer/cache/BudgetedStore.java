@@ -0,0 +1,498 @@
+package com.dansoftware.pdfdisplayer.cache;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Store of the caches, keeping values in memory within a byte budget, the least recently used values being evicted
+ * first. Evicted values can be kept in temporary files, within a second budget, and are read back on their next use.
+ * </br>
+ * The lock of the store only guards its bookkeeping : the temporary files are read by the first request of a value,
+ * the concurrent requests waiting for this reading, and are written and deleted by a single daemon thread.
+ * @param <V> Type of the values
+ */
+@Log4j2
+class BudgetedStore<V> {
+
+    /**
+     * Executor writing and deleting the temporary files, outside the lock of the stores
+     */
+    private static final ExecutorService fileExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread t = new Thread(runnable, "pdfdisplayer-cache-files");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Stored values, from the least to the most recently used
+     */
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Format of the values in memory and on disk
+     */
+    private final Format<V> format;
+
+    /**
+     * Prefix of the name of the directory of the temporary files
+     */
+    private final String directoryPrefix;
+
+    /**
+     * Maximal memory used by the values, in bytes
+     */
+    private long memoryBudget;
+
+    /**
+     * Maximal size of the temporary files of the evicted values, in bytes. 0 to disable the temporary files.
+     */
+    private long diskBudget;
+
+    /**
+     * Directory of the temporary files, created on the first eviction to disk by the executor of the files
+     */
+    private Path directory;
+
+    /**
+     * Number of values found in memory
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * Number of values found in the temporary files
+     */
+    private final AtomicLong diskHitCount = new AtomicLong();
+
+    /**
+     * Number of values not found
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Number of values evicted from memory
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param format          Format of the values in memory and on disk
+     * @param directoryPrefix Prefix of the name of the directory of the temporary files
+     * @param memoryBudget    Maximal memory used by the values, in bytes
+     * @param diskBudget      Maximal size of the temporary files of the evicted values, in bytes. 0 to disable them.
+     */
+    BudgetedStore(final Format<V> format, final String directoryPrefix, final long memoryBudget,
+                  final long diskBudget) {
+        this.format = format;
+        this.directoryPrefix = directoryPrefix;
+        this.memoryBudget = memoryBudget;
+        this.diskBudget = diskBudget;
+    }
+
+    /**
+     * Get a value, reading it back if it has been evicted to disk
+     * @param key Key of the value
+     * @return The value, null if not stored
+     */
+    V get(final String key) {
+        final Entry<V> entry;
+        final Path file;
+        final CompletableFuture<V> reading;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+
+            if (entry.value != null) {
+                hitCount.incrementAndGet();
+                if (entry.spilling) {
+                    // Used again before being written : kept in memory
+                    entry.spilling = false;
+                    trim();
+                }
+                return entry.value;
+            }
+
+            if (entry.reading != null) {
+                file = null;
+                reading = entry.reading;
+            }
+            else {
+                file = entry.file;
+                reading = new CompletableFuture<>();
+                entry.reading = reading;
+            }
+        }
+
+        if (file != null) {
+            readBack(key, entry, file, reading);
+        }
+        return reading.join();
+    }
+
+    /**
+     * Provide whether a value is stored, without reading it
+     * @param key Key of the value
+     * @return True if the value is stored
+     */
+    synchronized boolean contains(final String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Provide the validator of a value, like the ETag of a remote document
+     * @param key Key of the value
+     * @return The validator, null if the value isn't stored or has no validator
+     */
+    synchronized String getValidator(final String key) {
+        final Entry<V> entry = entries.get(key);
+        return entry == null ? null : entry.validator;
+    }
+
+    /**
+     * Store a value
+     * @param key       Key of the value
+     * @param value     The value
+     * @param validator Validator of the value, null if none
+     */
+    synchronized void put(final String key, final V value, final String validator) {
+        remove(entries.remove(key));
+        entries.put(key, new Entry<>(value, format.size(value), validator));
+        trim();
+    }
+
+    /**
+     * Remove a value
+     * @param key Key of the value
+     */
+    synchronized void remove(final String key) {
+        remove(entries.remove(key));
+    }
+
+    /**
+     * Remove all the values
+     */
+    synchronized void clear() {
+        entries.values().forEach(this::remove);
+        entries.clear();
+    }
+
+    synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    synchronized void setMemoryBudget(final long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        trim();
+    }
+
+    synchronized long getDiskBudget() {
+        return diskBudget;
+    }
+
+    synchronized void setDiskBudget(final long diskBudget) {
+        this.diskBudget = diskBudget;
+        trim();
+    }
+
+    /**
+     * Provide the statistics of the store
+     * @return Snapshot of the statistics
+     */
+    synchronized CacheStatistics getStatistics() {
+        return CacheStatistics.builder()
+                .hitCount(hitCount.get())
+                .diskHitCount(diskHitCount.get())
+                .missCount(missCount.get())
+                .evictionCount(evictionCount.get())
+                .entryCount(entries.size())
+                .memoryUsage(memoryUsage())
+                .diskUsage(diskUsage())
+                .build();
+    }
+
+    /**
+     * Evict the least recently used values exceeding the budgets. </br>
+     * The values moved to disk are written by the executor of the files, outside the lock.
+     */
+    synchronized void trim() {
+        long memoryUsage = memoryUsage();
+        final Iterator<Map.Entry<String, Entry<V>>> memoryIterator = entries.entrySet().iterator();
+        while (memoryUsage > memoryBudget && memoryIterator.hasNext()) {
+            final Map.Entry<String, Entry<V>> mapEntry = memoryIterator.next();
+            final Entry<V> entry = mapEntry.getValue();
+            if (entry.value == null || entry.spilling) {
+                continue;
+            }
+
+            memoryUsage -= format.memorySize(entry.value);
+            evictionCount.incrementAndGet();
+            if (entry.size <= diskBudget) {
+                final String key = mapEntry.getKey();
+                final V value = entry.value;
+                entry.spilling = true;
+                fileExecutor.execute(() -> spill(key, entry, value));
+                continue;
+            }
+            remove(entry);
+            memoryIterator.remove();
+        }
+
+        long diskUsage = diskUsage();
+        final Iterator<Entry<V>> diskIterator = entries.values().iterator();
+        while (diskUsage > diskBudget && diskIterator.hasNext()) {
+            final Entry<V> entry = diskIterator.next();
+            if (entry.isOnDisk() && entry.reading == null) {
+                diskUsage -= entry.size;
+                remove(entry);
+                diskIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Read back a value evicted to disk
+     * @param key     Key of the value
+     * @param entry   Entry of the value
+     * @param file    The temporary file of the value
+     * @param reading The reading, awaited by the concurrent requests of the value
+     */
+    private void readBack(final String key, final Entry<V> entry, final Path file, final CompletableFuture<V> reading) {
+        V value = null;
+        try {
+            value = format.read(file);
+        } catch (Exception e) {
+            log.warn("Can't read the cached entry " + key + " : ", e);
+        } finally {
+            synchronized (this) {
+                entry.reading = null;
+                if (!entry.removed) {
+                    if (value != null) {
+                        entry.value = value;
+                        entry.file = null;
+                        diskHitCount.incrementAndGet();
+                        trim();
+                    }
+                    else {
+                        entries.remove(key);
+                        entry.removed = true;
+                        missCount.incrementAndGet();
+                    }
+                }
+            }
+
+            fileExecutor.execute(() -> delete(file));
+            reading.complete(value);
+        }
+    }
+
+    /**
+     * Move a value from memory to a temporary file. Called by the executor of the files.
+     * @param key   Key of the value
+     * @param entry Entry of the value
+     * @param value The value
+     */
+    private void spill(final String key, final Entry<V> entry, final V value) {
+        Path file = null;
+        try {
+            if (directory == null) {
+                directory = Files.createTempDirectory(directoryPrefix);
+                directory.toFile().deleteOnExit();
+            }
+
+            file = Files.createTempFile(directory, format.getFilePrefix(), format.getFileSuffix());
+            file.toFile().deleteOnExit();
+            format.write(value, file);
+        } catch (IOException e) {
+            log.warn("Can't move the cached entry " + key + " to disk : ", e);
+            delete(file);
+            file = null;
+        }
+
+        synchronized (this) {
+            if (entry.spilling) {
+                entry.spilling = false;
+                if (file != null) {
+                    entry.file = file;
+                    entry.value = null;
+                    return;
+                }
+                // Can't be kept on disk
+                entries.remove(key);
+                entry.removed = true;
+            }
+        }
+        delete(file);
+    }
+
+    /**
+     * Release the resources of a removed entry, its file being deleted by the executor of the files
+     * @param entry The entry, can be null
+     */
+    private void remove(final Entry<V> entry) {
+        if (entry != null) {
+            entry.removed = true;
+            entry.spilling = false;
+            final Path file = entry.file;
+            if (file != null) {
+                fileExecutor.execute(() -> delete(file));
+            }
+        }
+    }
+
+    /**
+     * Delete a temporary file
+     * @param file The file, can be null
+     */
+    private static void delete(final Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Can't delete the cached entry " + file + " : ", e);
+            }
+        }
+    }
+
+    /**
+     * Provide the memory used by the values
+     * @return The memory used, in bytes
+     */
+    private long memoryUsage() {
+        return entries.values().stream()
+                .filter(entry -> entry.value != null && !entry.spilling)
+                .mapToLong(entry -> format.memorySize(entry.value))
+                .sum();
+    }
+
+    /**
+     * Provide the size of the temporary files
+     * @return The size of the files, in bytes
+     */
+    private long diskUsage() {
+        return entries.values().stream()
+                .filter(Entry::isOnDisk)
+                .mapToLong(entry -> entry.size)
+                .sum();
+    }
+
+    /**
+     * Format of the values of a store, in memory and on disk
+     * @param <V> Type of the values
+     */
+    interface Format<V> {
+        /**
+         * Provide the memory used by a value, which can grow while it is stored
+         * @param value The value
+         * @return The memory used, in bytes
+         */
+        long memorySize(V value);
+
+        /**
+         * Provide the size of a value on disk
+         * @param value The value
+         * @return The size of the value, in bytes
+         */
+        int size(V value);
+
+        /**
+         * Write a value to a temporary file
+         * @param value The value
+         * @param file  The file, created empty
+         * @throws IOException If the file can't be written
+         */
+        void write(V value, Path file) throws IOException;
+
+        /**
+         * Read a value from a temporary file
+         * @param file The file
+         * @return The value
+         * @throws IOException If the file can't be read
+         */
+        V read(Path file) throws IOException;
+
+        /**
+         * Provide the prefix of the names of the temporary files
+         * @return The prefix
+         */
+        String getFilePrefix();
+
+        /**
+         * Provide the suffix of the names of the temporary files
+         * @return The suffix, like an extension
+         */
+        String getFileSuffix();
+    }
+
+    /**
+     * Stored value
+     * @param <V> Type of the value
+     */
+    private static class Entry<V> {
+        /**
+         * The value, null if evicted to disk
+         */
+        private V value;
+
+        /**
+         * Temporary file of the value evicted to disk
+         */
+        private Path file;
+
+        /**
+         * Whether the value is being written to disk
+         */
+        private boolean spilling;
+
+        /**
+         * Reading of the value from disk in progress, awaited by the concurrent requests
+         */
+        private CompletableFuture<V> reading;
+
+        /**
+         * Whether the entry has been removed from the store
+         */
+        private boolean removed;
+
+        /**
+         * Size of the value on disk
+         */
+        private final int size;
+
+        /**
+         * Validator of the value, like the ETag of a remote document
+         */
+        private final String validator;
+
+        /**
+         * Constructor
+         * @param value     The value
+         * @param size      Size of the value on disk
+         * @param validator Validator of the value, null if none
+         */
+        Entry(final V value, final int size, final String validator) {
+            this.value = value;
+            this.size = size;
+            this.validator = validator;
+        }
+
+        /**
+         * Provide whether the value is on disk or being written to disk
+         * @return True if the value counts in the budget of the temporary files
+         */
+        boolean isOnDisk() {
+            return file != null || spilling;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.dansoftware.pdfdisplayer.cache;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Statistics of a cache, like the {@link DocumentCache} or the {@link PageImageCache}
+ */
+@Builder
+@Getter
+public class CacheStatistics {
+    /**
+     * Number of entries found in memory
+     */
+    private final long hitCount;
+
+    /**
+     * Number of entries found in the temporary files
+     */
+    private final long diskHitCount;
+
+    /**
+     * Number of entries not found
+     */
+    private final long missCount;
+
+    /**
+     * Number of entries evicted from memory
+     */
+    private final long evictionCount;
+
+    /**
+     * Number of cached entries
+     */
+    private final int entryCount;
+
+    /**
+     * Memory used by the cached entries, in bytes
+     */
+    private final long memoryUsage;
+
+    /**
+     * Size of the temporary files, in bytes
+     */
+    private final long diskUsage;
+
+    @Override
+    public String toString() {
+        return "hits=" + hitCount + ", diskHits=" + diskHitCount + ", misses=" + missCount
+                + ", evictions=" + evictionCount + ", entries=" + entryCount
+                + ", memory=" + memoryUsage + ", disk=" + diskUsage;
+    }
+}
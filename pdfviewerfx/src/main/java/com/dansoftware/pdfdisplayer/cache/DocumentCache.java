@@ -0,0 +1,505 @@
+package com.dansoftware.pdfdisplayer.cache;
+
+import com.dansoftware.pdfdisplayer.source.DocumentData;
+import com.dansoftware.pdfdisplayer.source.IDocumentSource;
+import com.dansoftware.pdfdisplayer.source.IReadListener;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Cache of the documents loaded in memory, shared by the {@link com.dansoftware.pdfdisplayer.PDFDisplayer}. </br>
+ * The documents are kept in memory within a byte budget, the least recently used documents being evicted first.
+ * Evicted documents can be kept in temporary files, within a second budget, and are read back on their next use.
+ * A document opened again is neither read nor encoded again.
+ */
+public class DocumentCache {
+
+    /**
+     * Memory budget of the default cache
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * Default cache, shared by the whole JVM
+     */
+    private static final DocumentCache defaultCache = new DocumentCache(DEFAULT_MEMORY_BUDGET, 0);
+
+    /**
+     * Cached documents, with their validators
+     */
+    private final BudgetedStore<DocumentData> store;
+
+    /**
+     * Loadings in progress, awaited by the concurrent requests of the same document
+     */
+    private final Map<String, CompletableFuture<DocumentData>> loadings = new HashMap<>();
+
+    /**
+     * Keys of the loadings in progress awaited by concurrent requests
+     */
+    private final Set<String> awaitedLoadings = new HashSet<>();
+
+    /**
+     * Revalidation keys of the prefetched documents, served once without being revalidated
+     */
+    private final Set<String> freshDocuments = new HashSet<>();
+
+    /**
+     * Keys of the documents returned by the cache, the documents being weakly referenced
+     */
+    private final Map<DocumentData, String> documentKeys = new WeakHashMap<>();
+
+    /**
+     * Keys of the cached documents by the keys identifying their content, for the documents cached under another key
+     */
+    private final Map<String, String> contentKeys = new HashMap<>();
+
+    /**
+     * Constructor
+     * @param memoryBudget Maximal memory used by the cached documents, in bytes
+     * @param diskBudget   Maximal size of the temporary files of the evicted documents, in bytes. 0 to disable them.
+     */
+    public DocumentCache(final long memoryBudget, final long diskBudget) {
+        this.store = new BudgetedStore<>(new DocumentFormat(), "pdfviewerfx-cache", memoryBudget, diskBudget);
+    }
+
+    /**
+     * Provide the default cache, shared by the whole JVM
+     * @return The default cache
+     */
+    public static DocumentCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Load the document of a source, reusing the cached document if any. </br>
+     * Concurrent requests of the same document wait for a single loading.
+     * @param source   Source of the document
+     * @param listener Listener of the progress of the reading
+     * @return The document, null if the loading is cancelled
+     * @throws Exception If the document can't be loaded
+     */
+    public DocumentData load(final IDocumentSource source, final IReadListener listener) throws Exception {
+        final Optional<String> key = source.getCacheKey();
+        if (key.isPresent()) {
+            return getOrLoad(key.get(), () -> source.read(null, listener));
+        }
+
+        final Optional<String> revalidationKey = source.getRevalidationKey();
+        if (revalidationKey.isPresent()) {
+            final Optional<DocumentData> freshDocument = takeFresh(revalidationKey.get());
+            if (freshDocument.isPresent()) {
+                return freshDocument.get();
+            }
+            return loadOnce(revalidationKey.get(), () -> revalidate(source, revalidationKey.get(), listener), false);
+        }
+
+        final DocumentData document = source.read(null, listener);
+        return document == null ? null : deduplicate(document);
+    }
+
+    /**
+     * Read the document of a source revalidated by its validator, like the ETag of a remote document
+     * @param source          Source of the document
+     * @param revalidationKey Revalidation key of the document
+     * @param listener        Listener of the progress of the reading
+     * @return The document, null if the loading is cancelled
+     * @throws Exception If the document can't be read
+     */
+    private DocumentData revalidate(final IDocumentSource source, final String revalidationKey,
+                                    final IReadListener listener) throws Exception {
+        final Optional<String> cachedValidator = getValidator(revalidationKey);
+        DocumentData document = source.read(cachedValidator.orElse(null), listener);
+        if (document == null) {
+            final Optional<DocumentData> cachedDocument = get(revalidationKey);
+            if (cachedDocument.isPresent()) {
+                return cachedDocument.get();
+            }
+            // Evicted meanwhile
+            document = source.read(null, listener);
+            if (document == null) {
+                return null;
+            }
+        }
+
+        if (document.getValidator().isPresent()) {
+            put(revalidationKey, document);
+            return document;
+        }
+        return deduplicate(document);
+    }
+
+    /**
+     * Get a cached document
+     * @param key Key of the document
+     * @return The document, empty if not cached
+     */
+    public Optional<DocumentData> get(final String key) {
+        final DocumentData document = store.get(key);
+        if (document != null) {
+            return Optional.of(keyed(key, document));
+        }
+
+        final String cacheKey;
+        synchronized (this) {
+            cacheKey = contentKeys.get(key);
+        }
+        return cacheKey == null ? Optional.empty() : Optional.ofNullable(keyed(cacheKey, store.get(cacheKey)));
+    }
+
+    /**
+     * Provide the key identifying the content of a document, like "sha-256:...". </br>
+     * A document returned by the cache can be got by this key while it is cached, even if it is cached under
+     * another key, like the key of its file.
+     * @param document The document
+     * @return The key of the content
+     */
+    public String getContentKey(final DocumentData document) {
+        final String contentKey = "sha-256:" + document.getContentHash();
+        synchronized (this) {
+            contentKeys.values().removeIf(cacheKey -> !store.contains(cacheKey));
+            final String cacheKey = documentKeys.get(document);
+            if (cacheKey != null && !cacheKey.equals(contentKey) && store.contains(cacheKey)) {
+                contentKeys.put(contentKey, cacheKey);
+            }
+        }
+        return contentKey;
+    }
+
+    /**
+     * Remember the key of a document returned by the cache
+     * @param key      Key of the document
+     * @param document The document, can be null
+     * @return The document
+     */
+    private DocumentData keyed(final String key, final DocumentData document) {
+        if (document != null) {
+            synchronized (this) {
+                documentKeys.put(document, key);
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Provide the validator of a cached document, like the ETag of a remote document
+     * @param key Key of the document
+     * @return The validator, empty if the document isn't cached or has no validator
+     */
+    public Optional<String> getValidator(final String key) {
+        return Optional.ofNullable(store.getValidator(key));
+    }
+
+    /**
+     * Cache a document, with its validator if any
+     * @param key      Key of the document
+     * @param document The document
+     */
+    public void put(final String key, final DocumentData document) {
+        synchronized (this) {
+            // The content cached under the key changes
+            contentKeys.values().removeIf(key::equals);
+        }
+        store.put(key, keyed(key, document), document.getValidator().orElse(null));
+    }
+
+    /**
+     * Get a cached document, or load it. </br>
+     * Concurrent requests of the same document wait for a single loading. If this loading is cancelled, one of
+     * the waiting requests takes it over with its own loader.
+     * @param key    Key of the document
+     * @param loader Loader of the document, returning null if the loading is cancelled
+     * @return The document, null if the loading is cancelled
+     * @throws Exception If the document can't be loaded
+     */
+    public DocumentData getOrLoad(final String key, final Callable<DocumentData> loader) throws Exception {
+        return loadOnce(key, () -> {
+            final DocumentData document = loader.call();
+            if (document != null) {
+                put(key, document);
+            }
+            return document;
+        }, true);
+    }
+
+    /**
+     * Load a document, or wait for its loading requested concurrently
+     * @param key        Key of the document
+     * @param loader     Loader of the document, caching it, returning null if the loading is cancelled
+     * @param cachedUsed Whether the cached document is returned without being loaded
+     * @return The document, null if the loading is cancelled
+     * @throws Exception If the document can't be loaded
+     */
+    private DocumentData loadOnce(final String key, final Callable<DocumentData> loader,
+                                  final boolean cachedUsed) throws Exception {
+        while (true) {
+            if (cachedUsed) {
+                final DocumentData document = store.get(key);
+                if (document != null) {
+                    return keyed(key, document);
+                }
+            }
+
+            final CompletableFuture<DocumentData> currentLoading;
+            final CompletableFuture<DocumentData> loading = new CompletableFuture<>();
+            synchronized (this) {
+                if (cachedUsed && store.contains(key)) {
+                    // Cached meanwhile
+                    continue;
+                }
+
+                currentLoading = loadings.putIfAbsent(key, loading);
+                if (currentLoading != null) {
+                    awaitedLoadings.add(key);
+                }
+            }
+
+            if (currentLoading != null) {
+                try {
+                    return awaitLoading(currentLoading);
+                } catch (AbandonedLoadingException e) {
+                    continue;
+                }
+            }
+
+            return runLoading(key, loader, loading);
+        }
+    }
+
+    /**
+     * Load a document requested by {@link #loadOnce(String, Callable, boolean)}
+     * @param key     Key of the document
+     * @param loader  Loader of the document, caching it, returning null if the loading is cancelled
+     * @param loading The loading, awaited by the concurrent requests of the document
+     * @return The document, null if the loading is cancelled
+     * @throws Exception If the document can't be loaded
+     */
+    private DocumentData runLoading(final String key, final Callable<DocumentData> loader,
+                                    final CompletableFuture<DocumentData> loading) throws Exception {
+        DocumentData document = null;
+        Exception error = null;
+        try {
+            document = loader.call();
+            return document;
+        } catch (Exception e) {
+            error = e;
+            throw e;
+        } finally {
+            synchronized (this) {
+                loadings.remove(key);
+                awaitedLoadings.remove(key);
+            }
+
+            if (document != null) {
+                loading.complete(document);
+            }
+            else if (error == null || isCancellation(error)) {
+                // The waiting requests aren't cancelled : one of them takes the loading over
+                loading.completeExceptionally(new AbandonedLoadingException());
+            }
+            else {
+                loading.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * Provide whether the loading of a document failed because it has been cancelled
+     * @param error The error of the loading
+     * @return True if the loading has been cancelled or its thread interrupted
+     */
+    private static boolean isCancellation(final Exception error) {
+        return error instanceof InterruptedException
+                || error instanceof InterruptedIOException
+                || error instanceof ClosedByInterruptException
+                || error instanceof CancellationException
+                || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Wait for the loading of a document requested concurrently
+     * @param loading The loading
+     * @return The loaded document
+     * @throws AbandonedLoadingException If the loading has been cancelled
+     * @throws Exception                 If the document can't be loaded
+     */
+    private static DocumentData awaitLoading(final CompletableFuture<DocumentData> loading) throws Exception {
+        try {
+            return loading.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Get the cached instance of a document with the same content, or cache the document. </br>
+     * Used for the documents without key, like the documents read from a stream : they are still read,
+     * but not encoded again.
+     * @param document The document
+     * @return The cached document with the same content
+     */
+    public DocumentData deduplicate(final DocumentData document) {
+        final String key = getContentKey(document);
+        final DocumentData cached = store.get(key);
+        if (cached != null) {
+            return keyed(key, cached);
+        }
+        put(key, document);
+        return document;
+    }
+
+    /**
+     * Remove a document from the cache
+     * @param key Key of the document
+     */
+    public void invalidate(final String key) {
+        store.remove(key);
+        synchronized (this) {
+            freshDocuments.remove(key);
+            contentKeys.remove(key);
+            contentKeys.values().removeIf(key::equals);
+        }
+    }
+
+    /**
+     * Remove all the documents from the cache
+     */
+    public void clear() {
+        store.clear();
+        synchronized (this) {
+            freshDocuments.clear();
+            contentKeys.clear();
+        }
+    }
+
+    /**
+     * Provide whether the loading of a document is awaited by a concurrent request
+     * @param key Key of the document
+     * @return True if a request waits for the loading in progress
+     */
+    synchronized boolean isAwaited(final String key) {
+        return awaitedLoadings.contains(key);
+    }
+
+    /**
+     * Serve a cached document once without revalidating it, having just been read from its source
+     * @param revalidationKey Revalidation key of the document
+     */
+    synchronized void markFresh(final String revalidationKey) {
+        if (store.contains(revalidationKey)) {
+            freshDocuments.add(revalidationKey);
+        }
+    }
+
+    /**
+     * Take a document served without revalidation
+     * @param revalidationKey Revalidation key of the document
+     * @return The document, empty if not fresh
+     */
+    private Optional<DocumentData> takeFresh(final String revalidationKey) {
+        final boolean fresh;
+        synchronized (this) {
+            fresh = freshDocuments.remove(revalidationKey);
+        }
+        return fresh ? get(revalidationKey) : Optional.empty();
+    }
+
+    /**
+     * Evict the documents exceeding the budgets, once the memory used by a cached document has grown
+     */
+    void trimToBudgets() {
+        store.trim();
+    }
+
+    public long getMemoryBudget() {
+        return store.getMemoryBudget();
+    }
+
+    public void setMemoryBudget(final long memoryBudget) {
+        store.setMemoryBudget(memoryBudget);
+    }
+
+    public long getDiskBudget() {
+        return store.getDiskBudget();
+    }
+
+    public void setDiskBudget(final long diskBudget) {
+        store.setDiskBudget(diskBudget);
+    }
+
+    /**
+     * Provide the statistics of the cache
+     * @return Snapshot of the statistics
+     */
+    public CacheStatistics getStatistics() {
+        return store.getStatistics();
+    }
+
+    /**
+     * Format of the cached documents, the memory used by their encoding included
+     */
+    private static class DocumentFormat implements BudgetedStore.Format<DocumentData> {
+        @Override
+        public long memorySize(final DocumentData document) {
+            return document.getMemorySize();
+        }
+
+        @Override
+        public int size(final DocumentData document) {
+            return document.size();
+        }
+
+        @Override
+        public void write(final DocumentData document, final Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                final ByteBuffer bytes = document.getBytes();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+        }
+
+        @Override
+        public DocumentData read(final Path file) throws IOException {
+            return DocumentData.of(Files.readAllBytes(file));
+        }
+
+        @Override
+        public String getFilePrefix() {
+            return "document";
+        }
+
+        @Override
+        public String getFileSuffix() {
+            return ".pdf";
+        }
+    }
+
+    /**
+     * Signal of a loading cancelled by its requester, to be taken over by the waiting requests
+     */
+    private static class AbandonedLoadingException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        AbandonedLoadingException() {
+            super(null, null, false, false);
+        }
+    }
+}
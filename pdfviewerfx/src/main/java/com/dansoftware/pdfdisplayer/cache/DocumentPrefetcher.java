@@ -0,0 +1,276 @@
+package com.dansoftware.pdfdisplayer.cache;
+
+import com.dansoftware.pdfdisplayer.LoadScheduler;
+import com.dansoftware.pdfdisplayer.mode.ModeFactory;
+import com.dansoftware.pdfdisplayer.source.DocumentData;
+import com.dansoftware.pdfdisplayer.source.IDocumentSource;
+import com.dansoftware.pdfdisplayer.source.IReadListener;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Prefetcher of the documents likely to be displayed next, like the next item of a queue. </br>
+ * The documents are read in the background, the highest priorities first, and prepared in a document cache
+ * in the form loaded by the displayers : hashed, and in JPro mode encoded in base64. Loading a prefetched document
+ * then skips its reading and its encoding, as long as it fits the memory budget of the cache. </br>
+ * The prefetches yield to the loadings of the displayers : they wait while documents are loaded, unless a displayer
+ * waits for the prefetched document itself. Their concurrency and their bandwidth are capped.
+ */
+@Log4j2
+public class DocumentPrefetcher {
+
+    /**
+     * Default prefetcher, yielding to the loadings of the default scheduler
+     */
+    private static final DocumentPrefetcher defaultPrefetcher = new DocumentPrefetcher(LoadScheduler.getDefault(), 2, 0);
+
+    /**
+     * Delay between two checks of the loadings of the displayers, while yielding to them or throttled
+     */
+    private static final long YIELD_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /**
+     * Scheduler of the loadings of the displayers, to which the prefetches yield
+     */
+    private final LoadScheduler foregroundScheduler;
+
+    /**
+     * Whether the documents are encoded in base64 in advance, the viewer receiving them as a whole base64 string
+     */
+    private final boolean base64Prepared = ModeFactory.create().isWholeBase64Transfer();
+
+    /**
+     * Executor of the prefetches, by priority
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Maximal bandwidth of all the prefetches, in bytes per second. 0 if unlimited.
+     */
+    private volatile long maxBytesPerSecond;
+
+    /**
+     * Time from which the bandwidth is available again, in nanoseconds
+     */
+    private final AtomicLong bandwidthAvailableTime = new AtomicLong(System.nanoTime());
+
+    /**
+     * Counter ordering the prefetches of the same priority by submission
+     */
+    private final AtomicLong submissionCounter = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param foregroundScheduler     Scheduler of the loadings of the displayers, to which the prefetches yield
+     * @param maxConcurrentPrefetches Maximal count of prefetches running at the same time
+     * @param maxBytesPerSecond       Maximal bandwidth of all the prefetches, in bytes per second. 0 if unlimited.
+     */
+    public DocumentPrefetcher(final LoadScheduler foregroundScheduler, final int maxConcurrentPrefetches,
+                              final long maxBytesPerSecond) {
+        this.foregroundScheduler = foregroundScheduler;
+        this.maxBytesPerSecond = maxBytesPerSecond;
+        executor = new ThreadPoolExecutor(maxConcurrentPrefetches, maxConcurrentPrefetches, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(),
+                runnable -> {
+                    final Thread t = new Thread(runnable, "pdfdisplayer-prefetcher");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Provide the default prefetcher, used by the displayers
+     * @return The default prefetcher
+     */
+    public static DocumentPrefetcher getDefault() {
+        return defaultPrefetcher;
+    }
+
+    /**
+     * Prefetch a document in a cache. </br>
+     * The source must be readable again by the displayer, like a file, an url or bytes : a stream is consumed by
+     * the prefetch. A remote document revalidated by its source is served once by the cache without revalidation.
+     * @param source   Source of the document
+     * @param priority Priority of the prefetch, the highest priorities being prefetched first
+     * @param cache    Cache receiving the document
+     * @return Future of the prepared document. Cancelling it abandons the prefetch if it isn't started.
+     */
+    public CompletableFuture<DocumentData> prefetch(final IDocumentSource source, final int priority,
+                                                    final DocumentCache cache) {
+        final Prefetch prefetch = new Prefetch(source, priority, submissionCounter.getAndIncrement(), cache);
+        prefetch.result.whenComplete((document, error) -> {
+            if (prefetch.result.isCancelled()) {
+                executor.remove(prefetch);
+            }
+        });
+        executor.execute(prefetch);
+        return prefetch.result;
+    }
+
+    /**
+     * Wait while the displayers load documents, unless a displayer waits for the prefetched document
+     * @param awaited Whether a displayer waits for the prefetched document
+     */
+    private void yieldToForeground(final BooleanSupplier awaited) {
+        while (foregroundScheduler.getRunningLoads() + foregroundScheduler.getQueuedLoads() > 0
+                && !awaited.getAsBoolean()) {
+            LockSupport.parkNanos(YIELD_DELAY_NANOS);
+        }
+    }
+
+    /**
+     * Wait for the bandwidth used by bytes read, shared by the prefetches, unless a displayer waits for the
+     * prefetched document
+     * @param bytes   Number of bytes read
+     * @param awaited Whether a displayer waits for the prefetched document
+     */
+    private void throttle(final long bytes, final BooleanSupplier awaited) {
+        final long rate = maxBytesPerSecond;
+        if (rate <= 0 || bytes <= 0) {
+            return;
+        }
+
+        final long cost = bytes * TimeUnit.SECONDS.toNanos(1) / rate;
+        final long availableTime = bandwidthAvailableTime.accumulateAndGet(System.nanoTime(),
+                (time, now) -> Math.max(time, now) + cost);
+        long remaining;
+        while ((remaining = availableTime - System.nanoTime()) > 0 && !awaited.getAsBoolean()) {
+            LockSupport.parkNanos(Math.min(remaining, YIELD_DELAY_NANOS));
+        }
+    }
+
+    public int getMaxConcurrentPrefetches() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public void setMaxConcurrentPrefetches(final int maxConcurrentPrefetches) {
+        if (maxConcurrentPrefetches > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(maxConcurrentPrefetches);
+            executor.setCorePoolSize(maxConcurrentPrefetches);
+        }
+        else {
+            executor.setCorePoolSize(maxConcurrentPrefetches);
+            executor.setMaximumPoolSize(maxConcurrentPrefetches);
+        }
+    }
+
+    public long getMaxBytesPerSecond() {
+        return maxBytesPerSecond;
+    }
+
+    public void setMaxBytesPerSecond(final long maxBytesPerSecond) {
+        this.maxBytesPerSecond = maxBytesPerSecond;
+    }
+
+    /**
+     * Provide the count of waiting prefetches
+     * @return The count of waiting prefetches
+     */
+    public int getQueuedPrefetches() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Prefetch of a document, ordered by priority then by submission
+     */
+    private class Prefetch implements Runnable, Comparable<Prefetch> {
+        /**
+         * Source of the document
+         */
+        private final IDocumentSource source;
+
+        /**
+         * Priority of the prefetch
+         */
+        private final int priority;
+
+        /**
+         * Order of submission of the prefetch
+         */
+        private final long submission;
+
+        /**
+         * Cache receiving the document
+         */
+        private final DocumentCache cache;
+
+        /**
+         * Future of the prepared document
+         */
+        private final CompletableFuture<DocumentData> result = new CompletableFuture<>();
+
+        Prefetch(final IDocumentSource source, final int priority, final long submission, final DocumentCache cache) {
+            this.source = source;
+            this.priority = priority;
+            this.submission = submission;
+            this.cache = cache;
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) {
+                return;
+            }
+
+            try {
+                // Key of the loading of the document, awaited by the displayers loading it meanwhile
+                final String key = source.getCacheKey().or(source::getRevalidationKey).orElse(null);
+                final BooleanSupplier awaited = () -> key != null && cache.isAwaited(key);
+                yieldToForeground(awaited);
+
+                // Once awaited by a displayer, the document is read at full speed
+                final IReadListener listener = new IReadListener() {
+                    private long lastReadBytes;
+
+                    @Override
+                    public void onProgress(final long readBytes, final long totalBytes) {
+                        final long bytes = readBytes - lastReadBytes;
+                        lastReadBytes = readBytes;
+                        if (!awaited.getAsBoolean()) {
+                            throttle(bytes, awaited);
+                            yieldToForeground(awaited);
+                        }
+                    }
+                };
+                final DocumentData document = cache.load(source, listener);
+                if (document == null) {
+                    result.cancel(false);
+                    return;
+                }
+                document.getContentHash();
+                if (base64Prepared) {
+                    document.getBase64();
+                }
+                if (document.getMemorySize() > cache.getMemoryBudget()) {
+                    log.warn("The prefetched document doesn't fit the memory budget of the cache : "
+                            + document.getMemorySize() + " bytes for " + cache.getMemoryBudget()
+                            + " bytes. It is evicted from memory once prepared.");
+                }
+                cache.trimToBudgets();
+                if (source.getCacheKey().isEmpty()) {
+                    source.getRevalidationKey().ifPresent(cache::markFresh);
+                }
+                result.complete(document);
+            } catch (Exception e) {
+                log.debug("Can't prefetch the document : " + e);
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(final Prefetch other) {
+            return priority != other.priority
+                    ? Integer.compare(other.priority, priority)
+                    : Long.compare(submission, other.submission);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.dansoftware.pdfdisplayer.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Cache of the page images rendered by the {@link com.dansoftware.pdfdisplayer.PDFDisplayer}, in PNG. </br>
+ * The images are identified by the hash of their document, their page and their scale. They are kept in memory
+ * within a byte budget, the least recently used images being evicted first. Evicted images can be kept in temporary
+ * files, within a second budget, and are read back on their next use.
+ */
+public class PageImageCache {
+
+    /**
+     * Memory budget of the default cache
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 32L * 1024 * 1024;
+
+    /**
+     * Default cache, shared by the whole JVM
+     */
+    private static final PageImageCache defaultCache = new PageImageCache(DEFAULT_MEMORY_BUDGET, 0);
+
+    /**
+     * Cached images
+     */
+    private final BudgetedStore<byte[]> store;
+
+    /**
+     * Constructor
+     * @param memoryBudget Maximal memory used by the cached images, in bytes
+     * @param diskBudget   Maximal size of the temporary files of the evicted images, in bytes. 0 to disable them.
+     */
+    public PageImageCache(final long memoryBudget, final long diskBudget) {
+        this.store = new BudgetedStore<>(new ImageFormat(), "pdfviewerfx-images", memoryBudget, diskBudget);
+    }
+
+    /**
+     * Provide the default cache, shared by the whole JVM
+     * @return The default cache
+     */
+    public static PageImageCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Build the key of a page image
+     * @param documentKey Key of the document, identifying its content
+     * @param pageNumber  Number of the page, from 1
+     * @param scale       Scale of the rendering
+     * @return The key of the image
+     */
+    public static String key(final String documentKey, final int pageNumber, final double scale) {
+        return documentKey + "#page=" + pageNumber + "&scale=" + scale;
+    }
+
+    /**
+     * Get a cached image
+     * @param key Key of the image
+     * @return The image in PNG, empty if not cached
+     */
+    public Optional<byte[]> get(final String key) {
+        return Optional.ofNullable(store.get(key));
+    }
+
+    /**
+     * Cache an image
+     * @param key   Key of the image
+     * @param image The image in PNG. Not copied : mustn't be modified.
+     */
+    public void put(final String key, final byte[] image) {
+        store.put(key, image, null);
+    }
+
+    /**
+     * Remove all the images from the cache
+     */
+    public void clear() {
+        store.clear();
+    }
+
+    public long getMemoryBudget() {
+        return store.getMemoryBudget();
+    }
+
+    public void setMemoryBudget(final long memoryBudget) {
+        store.setMemoryBudget(memoryBudget);
+    }
+
+    public long getDiskBudget() {
+        return store.getDiskBudget();
+    }
+
+    public void setDiskBudget(final long diskBudget) {
+        store.setDiskBudget(diskBudget);
+    }
+
+    /**
+     * Provide the statistics of the cache
+     * @return Snapshot of the statistics
+     */
+    public CacheStatistics getStatistics() {
+        return store.getStatistics();
+    }
+
+    /**
+     * Format of the cached images
+     */
+    private static class ImageFormat implements BudgetedStore.Format<byte[]> {
+        @Override
+        public long memorySize(final byte[] image) {
+            return image.length;
+        }
+
+        @Override
+        public int size(final byte[] image) {
+            return image.length;
+        }
+
+        @Override
+        public void write(final byte[] image, final Path file) throws IOException {
+            Files.write(file, image);
+        }
+
+        @Override
+        public byte[] read(final Path file) throws IOException {
+            return Files.readAllBytes(file);
+        }
+
+        @Override
+        public String getFilePrefix() {
+            return "page";
+        }
+
+        @Override
+        public String getFileSuffix() {
+            return ".png";
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.dansoftware.pdfdisplayer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of the loading of a document, from its source or from the cache
+ */
+@Name("com.dansoftware.pdfdisplayer.DocumentLoad")
+@Label("Document Load")
+@Description("Document loaded, from its source or from the cache")
+@Category("PDFViewerFX")
+class DocumentLoadEvent extends Event {
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+}
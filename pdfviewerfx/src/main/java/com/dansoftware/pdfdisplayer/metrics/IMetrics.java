@@ -0,0 +1,62 @@
+package com.dansoftware.pdfdisplayer.metrics;
+
+import com.dansoftware.pdfdisplayer.LoadingStage;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Receiver of the metrics of the displayers, to plug a metrics library. </br>
+ * The methods are called on the threads of the measured operations, often the JavaFX thread : the implementations
+ * must be thread safe and fast. All the methods do nothing by default.
+ * @see Metrics#install(IMetrics)
+ */
+public interface IMetrics {
+
+    /**
+     * Metrics doing nothing, installed by default
+     */
+    IMetrics NOOP = new IMetrics() {
+    };
+
+    /**
+     * Method called when a document is loaded, from its source or from the cache, before its transfer to the viewer
+     * @param bytes Size of the document
+     */
+    default void recordLoadBytes(final long bytes) {
+    }
+
+    /**
+     * Method called when a loading stage ends, the next stage being reached. The stages of the cancelled
+     * loadings are not recorded.
+     * @param stage         The ended stage : FETCH, TRANSFER, PARSE or RENDER
+     * @param durationNanos Duration of the stage
+     */
+    default void recordLoadStage(final LoadingStage stage, final long durationNanos) {
+    }
+
+    /**
+     * Method called when scripts are executed by a viewer. For the JPRO scripts without result,
+     * the duration is the time to send them to the browser.
+     * @param mode          Mode of the web node : "native" or "jpro"
+     * @param scriptCount   Count of scripts, executed together
+     * @param durationNanos Duration of the execution
+     */
+    default void recordScriptExecution(final String mode, final int scriptCount, final long durationNanos) {
+    }
+
+    /**
+     * Method called when a viewer starts a PDF.js worker, for its first document or when the worker isn't shared
+     * @param webWorker     Whether the worker runs in a web worker, false if it fell back to the main thread
+     * @param durationNanos Startup time of the worker, measured by the viewer
+     */
+    default void recordWorkerStartup(final boolean webWorker, final long durationNanos) {
+    }
+
+    /**
+     * Method called to register a gauge, when the metrics are installed or when the gauge is created
+     * @param name  Name of the gauge, one of the constants of {@link Metrics}
+     * @param value Current value of the gauge
+     */
+    default void registerGauge(final String name, final LongSupplier value) {
+    }
+}
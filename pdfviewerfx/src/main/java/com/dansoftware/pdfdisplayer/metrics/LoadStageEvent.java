@@ -0,0 +1,20 @@
+package com.dansoftware.pdfdisplayer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of a stage of the loading of a document
+ */
+@Name("com.dansoftware.pdfdisplayer.LoadStage")
+@Label("Load Stage")
+@Description("Stage of the loading of a document, ended when the next stage is reached")
+@Category("PDFViewerFX")
+class LoadStageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+}
@@ -0,0 +1,194 @@
+package com.dansoftware.pdfdisplayer.metrics;
+
+import com.dansoftware.pdfdisplayer.LoadingStage;
+import jdk.jfr.Event;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics of the displayers, forwarded to the installed {@link IMetrics} and published as JFR events. </br>
+ * The JFR events (category "PDFViewerFX") cost nothing while no recording is active.
+ */
+public final class Metrics {
+
+    /**
+     * Gauge of the web nodes created and not disposed
+     */
+    public static final String ACTIVE_VIEWERS = "pdfviewerfx.viewers.active";
+
+    /**
+     * Gauge of the JPRO scripts waiting to be sent to the browser, or waiting for the viewer
+     */
+    public static final String PENDING_SCRIPT_EXECUTIONS = "pdfviewerfx.scripts.pending";
+
+    /**
+     * Gauge of the operations of the displayers deferred until the creation of their web node or the loading of their viewer
+     */
+    public static final String DEFERRED_OPERATIONS = "pdfviewerfx.operations.deferred";
+
+    /**
+     * Gauge of the tasks waiting in the lanes of the JPRO web nodes
+     */
+    public static final String EXECUTOR_QUEUE_LENGTH = "pdfviewerfx.executor.queued";
+
+    /**
+     * Gauge of the loadings waiting in the default load scheduler
+     */
+    public static final String QUEUED_LOADS = "pdfviewerfx.loads.queued";
+
+    /**
+     * Gauge of the loadings running in the default load scheduler
+     */
+    public static final String RUNNING_LOADS = "pdfviewerfx.loads.running";
+
+    /**
+     * Installed metrics
+     */
+    private static volatile IMetrics metrics = IMetrics.NOOP;
+
+    /**
+     * Suppliers of the gauges by name. The suppliers registered with the same name are summed.
+     */
+    private static final Map<String, List<LongSupplier>> gauges = new LinkedHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Install the metrics receiving the measurements of all the displayers. The gauges are registered to them.
+     * @param newMetrics The metrics, null to restore the no-op metrics
+     */
+    public static void install(final IMetrics newMetrics) {
+        synchronized (gauges) {
+            metrics = newMetrics == null ? IMetrics.NOOP : newMetrics;
+            gauges.keySet().forEach(name -> metrics.registerGauge(name, () -> getGauge(name)));
+        }
+    }
+
+    /**
+     * Provide the installed metrics
+     * @return The installed metrics, no-op by default
+     */
+    public static IMetrics get() {
+        return metrics;
+    }
+
+    /**
+     * Register a supplier of a gauge. The suppliers registered with the same name are summed.
+     * @param name  Name of the gauge
+     * @param value Supplier of its value
+     */
+    public static void registerGauge(final String name, final LongSupplier value) {
+        synchronized (gauges) {
+            final boolean newGauge = !gauges.containsKey(name);
+            gauges.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+            if (newGauge) {
+                metrics.registerGauge(name, () -> getGauge(name));
+            }
+        }
+    }
+
+    /**
+     * Provide the current value of a gauge
+     * @param name Name of the gauge
+     * @return The value of the gauge, 0 if it isn't registered yet
+     */
+    public static long getGauge(final String name) {
+        final List<LongSupplier> suppliers;
+        synchronized (gauges) {
+            suppliers = List.copyOf(gauges.getOrDefault(name, List.of()));
+        }
+        return suppliers.stream().mapToLong(LongSupplier::getAsLong).sum();
+    }
+
+    /**
+     * Record the loading of a document, from its source or from the cache
+     * @param bytes Size of the document
+     */
+    public static void recordLoadBytes(final long bytes) {
+        final DocumentLoadEvent event = new DocumentLoadEvent();
+        event.bytes = bytes;
+        event.commit();
+        metrics.recordLoadBytes(bytes);
+    }
+
+    /**
+     * Record the start of a PDF.js worker by a viewer
+     * @param webWorker   Whether the worker runs in a web worker, false if it fell back to the main thread
+     * @param startupTime Startup time of the worker, measured by the viewer
+     */
+    public static void recordWorkerStartup(final boolean webWorker, final Duration startupTime) {
+        final WorkerStartupEvent event = new WorkerStartupEvent();
+        event.webWorker = webWorker;
+        event.startupTime = startupTime.toMillis();
+        event.commit();
+        metrics.recordWorkerStartup(webWorker, startupTime.toNanos());
+    }
+
+    /**
+     * Start the measurement of a loading stage
+     * @param stage The stage
+     * @return The probe to end when the next stage is reached, or to drop if the loading is cancelled
+     */
+    public static Probe beginLoadStage(final LoadingStage stage) {
+        final LoadStageEvent event = new LoadStageEvent();
+        event.stage = stage.name();
+        return new Probe(event, duration -> metrics.recordLoadStage(stage, duration));
+    }
+
+    /**
+     * Start the measurement of the execution of scripts
+     * @param mode        Mode of the web node : "native" or "jpro"
+     * @param scriptCount Count of scripts, executed together
+     * @param length      Total length of the scripts
+     * @return The probe to end once the scripts are executed
+     */
+    public static Probe beginScriptExecution(final String mode, final int scriptCount, final long length) {
+        final ScriptExecutionEvent event = new ScriptExecutionEvent();
+        event.mode = mode;
+        event.scriptCount = scriptCount;
+        event.length = length;
+        return new Probe(event, duration -> metrics.recordScriptExecution(mode, scriptCount, duration));
+    }
+
+    /**
+     * Measurement in progress of an operation, published as a JFR event and to the metrics when ended
+     */
+    public static final class Probe {
+
+        /**
+         * JFR event of the operation
+         */
+        private final Event event;
+
+        /**
+         * Recording of the duration in the metrics
+         */
+        private final LongConsumer recorder;
+
+        /**
+         * Start of the operation, in nanoseconds
+         */
+        private final long start = System.nanoTime();
+
+        private Probe(final Event event, final LongConsumer recorder) {
+            this.event = event;
+            this.recorder = recorder;
+            event.begin();
+        }
+
+        /**
+         * End the measurement
+         */
+        public void end() {
+            event.commit();
+            recorder.accept(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.dansoftware.pdfdisplayer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of the execution of scripts by a viewer
+ */
+@Name("com.dansoftware.pdfdisplayer.ScriptExecution")
+@Label("Script Execution")
+@Description("Scripts executed together by a viewer. For the JPRO scripts without result, time to send them.")
+@Category("PDFViewerFX")
+class ScriptExecutionEvent extends Event {
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Script Count")
+    int scriptCount;
+
+    @Label("Length")
+    @Description("Total length of the scripts, in characters")
+    long length;
+}
@@ -0,0 +1,26 @@
+package com.dansoftware.pdfdisplayer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of the start of a PDF.js worker by a viewer
+ */
+@Name("com.dansoftware.pdfdisplayer.WorkerStartup")
+@Label("Worker Startup")
+@Description("PDF.js worker started by a viewer, measured by the viewer")
+@Category("PDFViewerFX")
+class WorkerStartupEvent extends Event {
+
+    @Label("Web Worker")
+    @Description("Whether the worker runs in a web worker, or on the main thread of the viewer")
+    boolean webWorker;
+
+    @Label("Startup Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long startupTime;
+}
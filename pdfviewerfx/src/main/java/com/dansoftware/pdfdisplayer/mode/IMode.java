@@ -13,4 +13,11 @@ public interface IMode {
      * @return The code to access the PDF viewer element
      */
     String getPdfViewerWindowScriptCode();
+
+    /**
+     * Provide whether the documents are sent to the viewer as a whole base64 string, worth encoding in advance.
+     * Otherwise they are encoded by chunks during their transfer.
+     * @return True if the documents are sent as a whole base64 string
+     */
+    boolean isWholeBase64Transfer();
 }
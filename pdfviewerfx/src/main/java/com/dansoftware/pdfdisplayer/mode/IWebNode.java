@@ -1,7 +1,13 @@
 package com.dansoftware.pdfdisplayer.mode;
 
+import com.dansoftware.pdfdisplayer.source.DocumentData;
+import com.dansoftware.pdfdisplayer.source.IRangeSource;
 import javafx.scene.Parent;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -20,11 +26,59 @@ public interface IWebNode {
     void executeScript(String code, Consumer<Object> resultConsumer);
 
     /**
-     * Executes JavaScript code in the currently hosting browser.
+     * Executes JavaScript code in the currently hosting browser. Can be called from any thread.
      * @param code – The code to be executed.
      */
     void executeScript(String code);
 
+    /**
+     * Evaluate a JavaScript expression in the window of the viewer, once the viewer is loaded. </br>
+     * Cancelling the returned future abandons the evaluation if it isn't executed yet.
+     * @param expression The expression to evaluate
+     * @return Future of the result as a string, null if the expression has no value
+     */
+    CompletableFuture<String> evaluate(String expression);
+
+    /**
+     * Evaluate a JavaScript expression in the window of the viewer, once the viewer is loaded. </br>
+     * Cancelling the returned future abandons the evaluation if it isn't executed yet.
+     * @param expression The expression to evaluate
+     * @param type       Type of the result : String, Boolean, Integer, Long or Double
+     * @param <T>        Type of the result
+     * @return Future of the result, null if the expression has no value
+     */
+    default <T> CompletableFuture<T> evaluate(final String expression, final Class<T> type) {
+        ScriptEvaluation.checkSupported(type);
+
+        final CompletableFuture<String> evaluation = evaluate(expression);
+        final CompletableFuture<T> result = evaluation.thenApply(value -> ScriptEvaluation.convert(value, type));
+        result.whenComplete((value, error) -> evaluation.cancel(false));
+        return result;
+    }
+
+    /**
+     * Open a pdf document in the viewer
+     * @param data The content of the pdf document
+     */
+    void openDocument(DocumentData data);
+
+    /**
+     * Open a pdf document in the viewer, loading only the ranges requested by the viewer. </br>
+     * The source is closed when another document is opened.
+     * @param source The source of the pdf document
+     */
+    void openDocument(IRangeSource source);
+
+    /**
+     * Close the displayed document, the viewer staying loaded
+     */
+    void closeDocument();
+
+    /**
+     * Release the resources of the web node, unloading the viewer
+     */
+    void dispose();
+
     /**
      * Provide the node to display the web content
      * @return Node to display the web content
@@ -35,12 +89,32 @@ public interface IWebNode {
      * Load the pdf viewer
      * @param rootPath       Url of the root directory of the PDF Viewer
      * @param htmlViewerPath Path to the PDF Viewer HTML start file.
+     * @param urlFragment    Fragment of the url of the viewer carrying its options, without '#'. Null if none.
      */
-    void loadPdfViewer(String rootPath, String htmlViewerPath);
+    void loadPdfViewer(String rootPath, String htmlViewerPath, String urlFragment);
 
     /**
      * Define a task to execyte when the runnable is loaded
      * @param onLoadedTask The task to execute
      */
     void setOnLoaded(final Runnable onLoadedTask);
+
+    /**
+     * Define the listener of the events of the viewer, called with the name and the value of the events. </br>
+     * The events are pagechanging, pagesinit, pagesloaded, documentloaded, pagerendered, scalechanging,
+     * documentopening (the viewer starts opening a document), documenterror (the viewer can't open the document),
+     * transferprogress (between 0 and 1), renderstats (summary of the renderings), workerstarted (PDF.js worker
+     * started for the next documents),
+     * documentmissing (the document to switch to isn't kept by the viewer anymore), pageimage (part of a page
+     * image requested by renderPageImage : "id,chunk,base64", then "id,end," or "id,error,message") and pagetext
+     * (text of a page requested by extractText : "id,page,text", then "id,end,pageCount" or "id,error,message").
+     * @param onViewerEvent The listener
+     */
+    void setOnViewerEvent(BiConsumer<String, String> onViewerEvent);
+
+    /**
+     * Provide the time taken by the viewer to load, from its loading request to its readiness signal
+     * @return The loading duration, empty if the viewer isn't loaded yet
+     */
+    Optional<Duration> getViewerLoadingDuration();
 }
@@ -12,6 +12,11 @@ class JProMode implements IMode{
 
     @Override
     public String getPdfViewerWindowScriptCode() {
-        return "document.getElementById('" + JProWebNode.PDF_VIEWER_FRAME_ID + "').contentWindow.";
+        return JProWebNode.PDF_VIEWER_WINDOW;
+    }
+
+    @Override
+    public boolean isWholeBase64Transfer() {
+        return true;
     }
 }
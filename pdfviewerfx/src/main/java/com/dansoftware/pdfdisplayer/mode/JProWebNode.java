@@ -1,5 +1,8 @@
 package com.dansoftware.pdfdisplayer.mode;
 
+import com.dansoftware.pdfdisplayer.metrics.Metrics;
+import com.dansoftware.pdfdisplayer.source.DocumentData;
+import com.dansoftware.pdfdisplayer.source.IRangeSource;
 import com.jpro.webapi.HTMLView;
 import com.jpro.webapi.WebAPI;
 import javafx.application.Platform;
@@ -13,12 +16,24 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.log4j.Log4j2;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -33,9 +48,66 @@ class JProWebNode implements IWebNode {
     static final String PDF_VIEWER_FRAME_ID = "pdfviewerFrame";
 
     /**
-     * Executor to schedule scripts executions
+     * Code to access the window of the frame containing the viewer
      */
-    private static final ScheduledExecutorService jproWebNodeExecutor = Executors.newSingleThreadScheduledExecutor();
+    static final String PDF_VIEWER_WINDOW = "document.getElementById('" + PDF_VIEWER_FRAME_ID + "').contentWindow.";
+
+    /**
+     * Executor shared by the lanes of all the web nodes
+     */
+    private static final ExecutorService jproWebNodePool = Executors.newCachedThreadPool(runnable -> {
+        final Thread t = new Thread(runnable, "jpro-webnode");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Timer of the delayed tasks, which are then run in the lane of their web node
+     */
+    private static final ScheduledExecutorService jproWebNodeTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread t = new Thread(runnable, "jpro-webnode-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Maximal time waited for the readiness signal of the viewer, after which the viewer is considered loaded
+     */
+    private static final long VIEWER_READY_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Generator of the names of the bridges
+     */
+    private static final AtomicInteger bridgeIdGenerator = new AtomicInteger();
+
+    /**
+     * Count of the scripts of all the web nodes waiting for the viewer or to be sent
+     */
+    private static final AtomicInteger pendingScriptCount = new AtomicInteger();
+
+    static {
+        Metrics.registerGauge(Metrics.PENDING_SCRIPT_EXECUTIONS, pendingScriptCount::get);
+    }
+
+    /**
+     * Lane executing the scripts of this web node, in order
+     */
+    private final Executor jproWebNodeExecutor = new SerialExecutor(jproWebNodePool);
+
+    /**
+     * Name of the java function called by the viewer to send messages
+     */
+    private final String bridgeName = "pdfViewerBridge" + bridgeIdGenerator.incrementAndGet();
+
+    /**
+     * Server of the document currently loaded by ranges
+     */
+    private volatile RangeSourceServer rangeSourceServer;
+
+    /**
+     * Opening of the current document, completed when superseded to abandon its script if not yet sent
+     */
+    private volatile CompletableFuture<Void> documentOpening = CompletableFuture.completedFuture(null);
 
     /**
      * Node displaying the web content
@@ -52,21 +124,47 @@ class JProWebNode implements IWebNode {
      */
     private final VBox loadingPane = new VBox();
 
+    /**
+     * Listener of the events of the viewer
+     */
+    private volatile BiConsumer<String, String> onViewerEvent;
+
     /**
      * Task to call when the pdf viewer is loaded
      */
     private Runnable onLoadedTask;
 
     /**
-     * Method called when the viewer is loaded
+     * Whether the viewer has signaled its readiness
      */
-    private boolean viewerLoaded = false;
+    private volatile boolean viewerLoaded = false;
+
+    /**
+     * Time of the loading request of the viewer, in nanoseconds
+     */
+    private long viewerLoadingStart;
+
+    /**
+     * Time taken by the viewer to load
+     */
+    private volatile Duration viewerLoadingDuration;
 
     /**
      * List that contain all pending scripts execution that are waiting the load of the viewer
      */
     private final List<PendingScriptExecution> pendingScriptExecutions = new ArrayList<>();
 
+    /**
+     * Scripts waiting to be sent to the browser. All the scripts queued while a round trip is in progress are
+     * sent together in the next one.
+     */
+    private final Queue<PendingScriptExecution> queuedScriptExecutions = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether the sending of the queued scripts is scheduled
+     */
+    private final AtomicBoolean scriptsSendingScheduled = new AtomicBoolean();
+
     /**
      * Constructor
      */
@@ -97,87 +195,319 @@ class JProWebNode implements IWebNode {
      * @param webAPI         Web API
      * @param code           Code to execute
      * @param resultConsumer Consumer of the result
+     * @param cancellation   Future whose completion abandons the execution, if not yet executed
      */
-    private void internalExecuteScript(final WebAPI webAPI, final String code, final Consumer<Object> resultConsumer) {
-        if (!viewerLoaded) {
-            synchronized (pendingScriptExecutions) {
-                pendingScriptExecutions.add(PendingScriptExecution.builder()
-                        .code(code)
-                        .resultConsumer(resultConsumer)
-                        .build());
+    private void internalExecuteScript(final WebAPI webAPI, final String code, final Consumer<Object> resultConsumer,
+                                       final Future<?> cancellation) {
+        final PendingScriptExecution scriptExecution = PendingScriptExecution.builder()
+                .code(code)
+                .resultConsumer(resultConsumer)
+                .cancellation(cancellation)
+                .build();
+        pendingScriptCount.incrementAndGet();
+
+        synchronized (pendingScriptExecutions) {
+            if (!viewerLoaded) {
+                pendingScriptExecutions.add(scriptExecution);
+                return;
             }
         }
-        else {
-            jproWebNodeExecutor.execute(() -> {
-                try {
-                    log.info("Executing code : " + code);
-                    final String result;
-
-                    result = webAPI.executeScriptWithReturn(code);
-                    log.info("Execution result : " + result);
-                    if (resultConsumer != null) {
-                        resultConsumer.accept(result);
-                    }
-                } catch (final Exception e) {
-                    log.error("Can't execute script : ", e);
+
+        queuedScriptExecutions.add(scriptExecution);
+        scheduleScriptsSending(webAPI);
+    }
+
+    /**
+     * Schedule the sending of the queued scripts, if not yet scheduled
+     * @param webAPI Web API
+     */
+    private void scheduleScriptsSending(final WebAPI webAPI) {
+        if (scriptsSendingScheduled.compareAndSet(false, true)) {
+            jproWebNodeExecutor.execute(() -> sendQueuedScripts(webAPI));
+        }
+    }
+
+    /**
+     * Send the queued scripts, merging them in batches
+     * @param webAPI Web API
+     */
+    private void sendQueuedScripts(final WebAPI webAPI) {
+        scriptsSendingScheduled.set(false);
+
+        final List<PendingScriptExecution> batch = new ArrayList<>();
+        PendingScriptExecution scriptExecution;
+        while ((scriptExecution = queuedScriptExecutions.poll()) != null) {
+            pendingScriptCount.decrementAndGet();
+            if (scriptExecution.isCancelled()) {
+                continue;
+            }
+
+            if (scriptExecution.getCode().length() > ScriptBatch.MAX_BATCHED_SCRIPT_LENGTH) {
+                sendBatch(webAPI, batch);
+                batch.clear();
+                sendBatch(webAPI, List.of(scriptExecution));
+            }
+            else {
+                batch.add(scriptExecution);
+            }
+        }
+        sendBatch(webAPI, batch);
+    }
+
+    /**
+     * Send a batch of scripts in one round trip
+     * @param webAPI Web API
+     * @param batch  Scripts to execute
+     */
+    private void sendBatch(final WebAPI webAPI, final List<PendingScriptExecution> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final String code = batch.size() == 1
+                ? batch.get(0).getCode()
+                : ScriptBatch.build(batch.stream().map(PendingScriptExecution::getCode).toList());
+        final Metrics.Probe probe = Metrics.beginScriptExecution("jpro", batch.size(), code.length());
+        try {
+            // Without result to wait for, the scripts are sent without blocking the lane
+            if (batch.stream().allMatch(execution -> execution.getResultConsumer() == null)) {
+                log.debug("Sending {} scripts : {}", batch::size, () -> ScriptTrace.abbreviate(code));
+                webAPI.executeScript(code);
+                probe.end();
+                return;
+            }
+
+            log.debug("Executing {} scripts : {}", batch::size, () -> ScriptTrace.abbreviate(code));
+            final String result = webAPI.executeScriptWithReturn(code);
+            probe.end();
+            log.debug("Execution result : {}", () -> ScriptTrace.abbreviate(result));
+
+            final List<String> results = batch.size() == 1
+                    ? Collections.singletonList(result)
+                    : ScriptBatch.parseResults(result, batch.size());
+
+            for (int i = 0; i < batch.size(); i++) {
+                final Consumer<Object> resultConsumer = batch.get(i).getResultConsumer();
+                if (resultConsumer != null) {
+                    resultConsumer.accept(results.get(i));
                 }
-            });
+            }
+        } catch (final Exception e) {
+            log.error("Can't execute script : ", e);
         }
     }
 
     @Override
     public void executeScript(final String code, final Consumer<Object> resultConsumer) {
+        executeScript(code, resultConsumer, null);
+    }
+
+    /**
+     * Execute a script, unless abandoned before its execution
+     * @param code           Code to execute
+     * @param resultConsumer Consumer of the result
+     * @param cancellation   Future whose completion abandons the execution, if not yet executed
+     */
+    private void executeScript(final String code, final Consumer<Object> resultConsumer, final Future<?> cancellation) {
         if (htmlView.getScene() != null) {
-            internalExecuteScript(WebAPI.getWebAPI(htmlView.getScene()), code, resultConsumer);
+            internalExecuteScript(WebAPI.getWebAPI(htmlView.getScene()), code, resultConsumer, cancellation);
         }
         else {
-            WebAPI.getWebAPI(htmlView, webAPI -> internalExecuteScript(webAPI, code, resultConsumer));
+            WebAPI.getWebAPI(htmlView, webAPI -> internalExecuteScript(webAPI, code, resultConsumer, cancellation));
         }
     }
 
+    @Override
+    public CompletableFuture<String> evaluate(final String expression) {
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        executeScript(ScriptEvaluation.build(PDF_VIEWER_WINDOW, expression),
+                value -> ScriptEvaluation.complete(result, value), result);
+        return result;
+    }
+
     @Override
     public void executeScript(final String code) {
         executeScript(code, null);
     }
 
+    @Override
+    public void openDocument(final DocumentData data) {
+        closeRangeSource();
+        final CompletableFuture<Void> opening = newDocumentOpening();
+
+        // The document is sent as a base64 script : encoding it out of the calling thread
+        jproWebNodeExecutor.execute(() -> {
+            if (!opening.isDone()) {
+                executeScript(PDF_VIEWER_WINDOW + "openFileFromBase64('" + data.getBase64() + "');", null, opening);
+            }
+        });
+    }
+
+    @Override
+    public void openDocument(final IRangeSource source) {
+        closeRangeSource();
+        newDocumentOpening();
+
+        final RangeSourceServer server = new RangeSourceServer(source);
+        rangeSourceServer = server;
+        server.readInitialData(initialData -> {
+            if (rangeSourceServer == server) {
+                executeScript(PDF_VIEWER_WINDOW + "openRangeDocument("
+                        + server.getId() + "," + server.length() + ",'" + initialData + "');");
+            }
+        });
+    }
+
+    @Override
+    public void closeDocument() {
+        closeRangeSource();
+        newDocumentOpening();
+        executeScript(PDF_VIEWER_WINDOW + "abortDocumentOpening();");
+    }
+
+    @Override
+    public void dispose() {
+        closeRangeSource();
+        onLoadedTask = null;
+        onViewerEvent = null;
+        synchronized (pendingScriptExecutions) {
+            viewerLoaded = false;
+            pendingScriptCount.addAndGet(-pendingScriptExecutions.size());
+            pendingScriptExecutions.clear();
+            while (queuedScriptExecutions.poll() != null) {
+                pendingScriptCount.decrementAndGet();
+            }
+        }
+        htmlView.setContent("");
+    }
+
+    /**
+     * Start the opening of a document, abandoning the opening of the previous document
+     * @return The opening of the document
+     */
+    private CompletableFuture<Void> newDocumentOpening() {
+        final CompletableFuture<Void> opening = new CompletableFuture<>();
+        documentOpening.complete(null);
+        documentOpening = opening;
+        return opening;
+    }
+
+    /**
+     * Close the source of the document loaded by ranges, if any
+     */
+    private void closeRangeSource() {
+        final RangeSourceServer server = rangeSourceServer;
+        if (server != null) {
+            rangeSourceServer = null;
+            server.close();
+        }
+    }
+
+    /**
+     * Method called when the viewer sends a message
+     * @param message The message, formatted as "type:data"
+     */
+    private void onViewerMessage(final String message) {
+        final int separatorIndex = message.indexOf(':');
+        if (separatorIndex < 0) {
+            log.error("Malformed viewer message : " + message);
+            return;
+        }
+        final String type = message.substring(0, separatorIndex);
+        final String data = message.substring(separatorIndex + 1);
+
+        final RangeSourceServer server = rangeSourceServer;
+        final BiConsumer<String, String> eventListener = onViewerEvent;
+        if (ViewerMessages.READY.equals(type)) {
+            onViewerReady();
+        }
+        else if (ViewerMessages.EVENT.equals(type) && eventListener != null) {
+            final int eventSeparatorIndex = data.indexOf(',');
+            if (eventSeparatorIndex < 0) {
+                log.error("Malformed viewer event : " + data);
+                return;
+            }
+            eventListener.accept(data.substring(0, eventSeparatorIndex), data.substring(eventSeparatorIndex + 1));
+        }
+        else if (ViewerMessages.IMAGE.equals(type) && eventListener != null) {
+            eventListener.accept(ViewerMessages.PAGE_IMAGE_EVENT, data);
+        }
+        else if (ViewerMessages.TEXT.equals(type) && eventListener != null) {
+            eventListener.accept(ViewerMessages.PAGE_TEXT_EVENT, data);
+        }
+        else if (ViewerMessages.RANGE.equals(type) && server != null) {
+            server.serve(data, (begin, range) -> executeScript(PDF_VIEWER_WINDOW + "onDataRange("
+                            + server.getId() + "," + begin + ",'" + range + "');"),
+                    error -> {
+                        final StringBuilder script = new StringBuilder(PDF_VIEWER_WINDOW)
+                                .append("onDataRangeError(").append(server.getId()).append(',');
+                        ScriptBatch.appendLiteral(script, error);
+                        executeScript(script.append(");").toString());
+                    });
+        }
+    }
+
     @Override
     public Parent toNode() {
         return rootPane;
     }
 
     @Override
-    public void loadPdfViewer(final String rootPath, final String htmlViewerPath) {
+    public void loadPdfViewer(final String rootPath, final String htmlViewerPath, final String urlFragment) {
         WebAPI.getWebAPI(htmlView, webAPI -> {
-            final String publicUrl = webAPI.getServerName() + "pdfjs" + rootPath + "/" + htmlViewerPath;
+            final String publicUrl = PdfJSAssetServer.getActive()
+                    .map(server -> server.getViewerUrl(rootPath, htmlViewerPath))
+                    .orElseGet(() -> webAPI.getServerName() + "pdfjs" + rootPath + "/" + htmlViewerPath)
+                    + (urlFragment != null ? "#" + urlFragment : "");
             log.debug("publicUrl : " + publicUrl);
+            // Registering the function called by the viewer to send messages
+            webAPI.registerJavaFunction(bridgeName, this::onViewerMessage);
+
             final String content =
-                    "<iframe id=\"" + PDF_VIEWER_FRAME_ID + "\" frameborder=\"0\" style=\"width: 100%; height: 100%;\" src=\""
+                    "<iframe id=\"" + PDF_VIEWER_FRAME_ID + "\" data-bridge=\"" + bridgeName
+                            + "\" frameborder=\"0\" style=\"width: 100%; height: 100%;\" src=\""
                             + publicUrl
                             + "\"> </iframe>";
+            viewerLoadingStart = System.nanoTime();
             htmlView.setContent(content);
+            log.debug("PdfViewer loading");
+
+            // The viewer is considered loaded if it never signals its readiness
+            jproWebNodeTimer.schedule(() -> jproWebNodeExecutor.execute(() -> {
+                if (viewerLoadingDuration == null) {
+                    log.warn("No readiness signal received from the PdfViewer after "
+                            + VIEWER_READY_TIMEOUT_SECONDS + " s");
+                    onViewerReady();
+                }
+            }), VIEWER_READY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        });
+    }
 
-            log.info("PdfViewer loaded");
+    /**
+     * Method called when the viewer signals its readiness
+     */
+    private void onViewerReady() {
+        synchronized (pendingScriptExecutions) {
+            if (viewerLoaded) {
+                return;
+            }
+            viewerLoadingDuration = Duration.ofNanos(System.nanoTime() - viewerLoadingStart);
             viewerLoaded = true;
-            onLoaded();
-        });
+
+            // The pending scripts are sent first, together in one round trip
+            queuedScriptExecutions.addAll(pendingScriptExecutions);
+            pendingScriptExecutions.clear();
+        }
+        log.debug("PdfViewer ready in " + viewerLoadingDuration.toMillis() + " ms");
+        onLoaded();
     }
 
     /**
      * Method called when the viewer is loaded
      */
     private void onLoaded() {
-        // TODO : The task is scheduled with a timer. I haven't found how to detect the full loading of the viewer
-        // in the browser
-        jproWebNodeExecutor.schedule(() -> {
-            WebAPI.getWebAPI(htmlView, webAPI -> {
-                synchronized (pendingScriptExecutions) {
-                    pendingScriptExecutions.forEach(pendingScriptExecution ->
-                            internalExecuteScript(webAPI, pendingScriptExecution.getCode(),
-                                    pendingScriptExecution.getResultConsumer()));
-
-                    pendingScriptExecutions.clear();
-                }
-            });
+        jproWebNodeExecutor.execute(() -> {
+            WebAPI.getWebAPI(htmlView, this::scheduleScriptsSending);
 
             if (onLoadedTask != null) {
                 onLoadedTask.run();
@@ -188,8 +518,7 @@ class JProWebNode implements IWebNode {
                 loadingPane.setVisible(false);
                 loadingPane.setManaged(false);
             });
-        }, 1, TimeUnit.SECONDS);
-
+        });
     }
 
     @Override
@@ -202,6 +531,16 @@ class JProWebNode implements IWebNode {
         }
     }
 
+    @Override
+    public void setOnViewerEvent(final BiConsumer<String, String> onViewerEvent) {
+        this.onViewerEvent = onViewerEvent;
+    }
+
+    @Override
+    public Optional<Duration> getViewerLoadingDuration() {
+        return Optional.ofNullable(viewerLoadingDuration);
+    }
+
     /**
      * Class to store a pending script execution
      */
@@ -217,5 +556,18 @@ class JProWebNode implements IWebNode {
          * Consumer of the result
          */
         private final Consumer<Object> resultConsumer;
+
+        /**
+         * Future whose completion abandons the execution, if not yet executed
+         */
+        private final Future<?> cancellation;
+
+        /**
+         * Provide whether the execution is abandoned
+         * @return True if the execution is abandoned
+         */
+        boolean isCancelled() {
+            return cancellation != null && cancellation.isDone();
+        }
     }
 }
@@ -0,0 +1,32 @@
+package com.dansoftware.pdfdisplayer.mode;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Object exposed to the pdf viewer to send messages to the java side in native mode. </br>
+ * The class must be public to be callable from javascript.
+ */
+public class JSBridge {
+
+    /**
+     * Handler of the messages, receiving the type and the data of each message
+     */
+    private final BiConsumer<String, String> messageHandler;
+
+    /**
+     * Constructor
+     * @param messageHandler Handler of the messages
+     */
+    JSBridge(final BiConsumer<String, String> messageHandler) {
+        this.messageHandler = messageHandler;
+    }
+
+    /**
+     * Receive a message from the viewer
+     * @param type Type of the message
+     * @param data Data of the message
+     */
+    public void receive(final String type, final String data) {
+        messageHandler.accept(type, data);
+    }
+}
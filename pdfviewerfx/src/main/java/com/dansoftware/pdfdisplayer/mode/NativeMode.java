@@ -13,4 +13,9 @@ class NativeMode implements IMode{
     public String getPdfViewerWindowScriptCode() {
         return "";
     }
+
+    @Override
+    public boolean isWholeBase64Transfer() {
+        return false;
+    }
 }
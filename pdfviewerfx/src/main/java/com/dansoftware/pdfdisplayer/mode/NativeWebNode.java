@@ -1,28 +1,109 @@
 package com.dansoftware.pdfdisplayer.mode;
 
+import com.dansoftware.pdfdisplayer.metrics.Metrics;
+import com.dansoftware.pdfdisplayer.source.DocumentData;
+import com.dansoftware.pdfdisplayer.source.IRangeSource;
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.concurrent.Worker;
 import javafx.scene.Parent;
 import javafx.scene.web.WebView;
+import lombok.extern.log4j.Log4j2;
 import netscape.javascript.JSObject;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
  * Web node used on native JavaFX apps
  */
+@Log4j2
 class NativeWebNode implements IWebNode {
 
+    /**
+     * Count of the evaluations of all the web nodes waiting for their viewer
+     */
+    private static final AtomicInteger pendingEvaluationCount = new AtomicInteger();
+
+    static {
+        Metrics.registerGauge(Metrics.DEFERRED_OPERATIONS, pendingEvaluationCount::get);
+    }
+
     /**
      * Web view
      */
     private final WebView webView = new WebView();
 
     /**
-     * Loading state listener
+     * Task to call when the pdf viewer is loaded
+     */
+    private Runnable onLoadedTask;
+
+    /**
+     * Listener of the events of the viewer
+     */
+    private BiConsumer<String, String> onViewerEvent;
+
+    /**
+     * Whether the viewer has signaled its readiness
+     */
+    private boolean viewerLoaded;
+
+    /**
+     * Evaluations requested before the readiness of the viewer
+     */
+    private final List<Runnable> pendingEvaluations = new ArrayList<>();
+
+    /**
+     * Time of the loading request of the viewer, in nanoseconds
+     */
+    private long viewerLoadingStart;
+
+    /**
+     * Time taken by the viewer to load
+     */
+    private Duration viewerLoadingDuration;
+
+    /**
+     * Transfer of the document currently sent to the viewer
+     */
+    private BinaryTransfer currentTransfer;
+
+    /**
+     * Server of the document currently loaded by ranges
+     */
+    private RangeSourceServer rangeSourceServer;
+
+    /**
+     * Bridge used by the viewer to send messages. Referenced here as the web engine only keeps a weak reference.
      */
-    private ChangeListener<Worker.State> loadingStateListener;
+    private final JSBridge jsBridge = new JSBridge(this::onViewerMessage);
+
+    /**
+     * Listener installing the bridge once the viewer is loaded, then delivering the messages sent before
+     */
+    private final ChangeListener<Worker.State> loadStateListener = (observable, oldValue, newValue) -> {
+        // Another page, like the blank page of a disposed node, has no bridge
+        if (newValue == Worker.State.SUCCEEDED
+                && Boolean.TRUE.equals(webView.getEngine().executeScript("typeof flushJavaMessages === 'function'"))) {
+            final JSObject window = getWindow();
+            window.setMember("java", new JSLogListener());
+            executeScript("console.log = function(message){ try {java.log(message);} catch(e) {} };");
+
+            window.setMember("javaBridge", jsBridge);
+            window.call("flushJavaMessages");
+        }
+    };
 
     /**
      * Constructor
@@ -30,20 +111,179 @@ class NativeWebNode implements IWebNode {
     public NativeWebNode() {
         webView.setContextMenuEnabled(false);
         webView.getEngine().setJavaScriptEnabled(true);
+        webView.getEngine().getLoadWorker().stateProperty().addListener(loadStateListener);
+    }
+
+    /**
+     * Provide the window of the viewer
+     * @return The window of the viewer
+     */
+    private JSObject getWindow() {
+        return (JSObject) webView.getEngine().executeScript("window");
+    }
+
+    /**
+     * Method called when the viewer sends a message
+     * @param type Type of the message
+     * @param data Data of the message
+     */
+    private void onViewerMessage(final String type, final String data) {
+        final RangeSourceServer server = rangeSourceServer;
+        if (ViewerMessages.READY.equals(type)) {
+            onViewerReady();
+        }
+        else if (ViewerMessages.EVENT.equals(type) && onViewerEvent != null) {
+            final int separatorIndex = data.indexOf(',');
+            if (separatorIndex < 0) {
+                log.error("Malformed viewer event : " + data);
+                return;
+            }
+            onViewerEvent.accept(data.substring(0, separatorIndex), data.substring(separatorIndex + 1));
+        }
+        else if (ViewerMessages.IMAGE.equals(type) && onViewerEvent != null) {
+            onViewerEvent.accept(ViewerMessages.PAGE_IMAGE_EVENT, data);
+        }
+        else if (ViewerMessages.TEXT.equals(type) && onViewerEvent != null) {
+            onViewerEvent.accept(ViewerMessages.PAGE_TEXT_EVENT, data);
+        }
+        else if (ViewerMessages.RANGE.equals(type) && server != null) {
+            server.serve(data, (begin, range) -> Platform.runLater(() ->
+                            getWindow().call("onDataRange", server.getId(), (double) begin, range)),
+                    error -> Platform.runLater(() -> getWindow().call("onDataRangeError", server.getId(), error)));
+        }
+    }
+
+    /**
+     * Method called when the viewer signals its readiness
+     */
+    private void onViewerReady() {
+        viewerLoadingDuration = Duration.ofNanos(System.nanoTime() - viewerLoadingStart);
+        log.debug("PdfViewer ready in " + viewerLoadingDuration.toMillis() + " ms");
+        viewerLoaded = true;
+
+        pendingEvaluations.forEach(Runnable::run);
+        clearPendingEvaluations();
+
+        if (onLoadedTask != null) {
+            onLoadedTask.run();
+        }
     }
 
     @Override
     public void executeScript(final String code, final Consumer<Object> resultConsumer) {
-        final Object result = webView.getEngine().executeScript(code);
+        final Object result = executeMeasuredScript(code);
 
         if (resultConsumer != null) {
             resultConsumer.accept(result);
         }
     }
 
+    /**
+     * Execute a script in the web engine, measuring its execution
+     * @param code Code to execute
+     * @return The result of the script
+     */
+    private Object executeMeasuredScript(final String code) {
+        final Metrics.Probe probe = Metrics.beginScriptExecution("native", 1, code.length());
+        final Object result = webView.getEngine().executeScript(code);
+        probe.end();
+        return result;
+    }
+
+    /**
+     * Clear the evaluations waiting for the viewer
+     */
+    private void clearPendingEvaluations() {
+        pendingEvaluationCount.addAndGet(-pendingEvaluations.size());
+        pendingEvaluations.clear();
+    }
+
     @Override
     public void executeScript(final String code) {
-        executeScript(code, null);
+        // Executable from any thread, the web engine being confined to the JavaFX thread
+        if (Platform.isFxApplicationThread()) {
+            executeScript(code, null);
+        }
+        else {
+            Platform.runLater(() -> executeScript(code, null));
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> evaluate(final String expression) {
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        final Runnable evaluation = () -> {
+            if (!result.isDone()) {
+                try {
+                    ScriptEvaluation.complete(result, executeMeasuredScript(ScriptEvaluation.build("", expression)));
+                } catch (final RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        };
+
+        Platform.runLater(() -> {
+            if (viewerLoaded) {
+                evaluation.run();
+            }
+            else {
+                pendingEvaluations.add(evaluation);
+                pendingEvaluationCount.incrementAndGet();
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void openDocument(final DocumentData data) {
+        closeRangeSource();
+        currentTransfer = new BinaryTransfer(getWindow(), data);
+        currentTransfer.start();
+    }
+
+    @Override
+    public void openDocument(final IRangeSource source) {
+        currentTransfer = null;
+        closeRangeSource();
+
+        final RangeSourceServer server = new RangeSourceServer(source);
+        rangeSourceServer = server;
+        server.readInitialData(initialData -> Platform.runLater(() -> {
+            if (rangeSourceServer == server) {
+                getWindow().call("openRangeDocument", server.getId(), (double) server.length(), initialData);
+            }
+        }));
+    }
+
+    @Override
+    public void closeDocument() {
+        currentTransfer = null;
+        closeRangeSource();
+        if (viewerLoaded) {
+            executeScript("abortDocumentOpening();");
+        }
+    }
+
+    @Override
+    public void dispose() {
+        currentTransfer = null;
+        closeRangeSource();
+        clearPendingEvaluations();
+        onLoadedTask = null;
+        onViewerEvent = null;
+        viewerLoaded = false;
+        webView.getEngine().getLoadWorker().stateProperty().removeListener(loadStateListener);
+        webView.getEngine().load("about:blank");
+    }
+
+    /**
+     * Close the source of the document loaded by ranges, if any
+     */
+    private void closeRangeSource() {
+        if (rangeSourceServer != null) {
+            rangeSourceServer.close();
+            rangeSourceServer = null;
+        }
     }
 
     @Override
@@ -52,33 +292,113 @@ class NativeWebNode implements IWebNode {
     }
 
     @Override
-    public void loadPdfViewer(final String rootPath, final String htmlViewerPath) {
+    public void loadPdfViewer(final String rootPath, final String htmlViewerPath, final String urlFragment) {
         final String url = Objects.requireNonNull(getClass().getResource(rootPath + "/" + htmlViewerPath))
-                .toExternalForm();
+                .toExternalForm() + (urlFragment != null ? "#" + urlFragment : "");
+        viewerLoadingStart = System.nanoTime();
         webView.getEngine().load(url);
     }
 
     @Override
     public void setOnLoaded(final Runnable onLoadedTask) {
-        if (loadingStateListener != null) {
-            webView.getEngine().getLoadWorker().stateProperty().removeListener(loadingStateListener);
-            loadingStateListener = null;
+        this.onLoadedTask = onLoadedTask;
+
+        // If yet loaded, we load
+        if (onLoadedTask != null && viewerLoaded) {
+            onLoadedTask.run();
         }
+    }
 
-        if (onLoadedTask != null) {
-            loadingStateListener = (observable, oldValue, newValue) -> executeScript("window", o -> {
-                JSObject window = (JSObject) o;
-                window.setMember("java", new JSLogListener());
-                executeScript("console.log = function(message){ try {java.log(message);} catch(e) {} };");
+    @Override
+    public void setOnViewerEvent(final BiConsumer<String, String> onViewerEvent) {
+        this.onViewerEvent = onViewerEvent;
+    }
 
-                if (newValue == Worker.State.SUCCEEDED) {
-                    onLoadedTask.run();
-                }
-            });
+    @Override
+    public Optional<Duration> getViewerLoadingDuration() {
+        return Optional.ofNullable(viewerLoadingDuration);
+    }
+
+    /**
+     * Transfer of a document to the viewer through the JSObject bridge. </br>
+     * The bytes are sent in bounded chunks, one per pulse of the FX thread, and are written by the viewer
+     * into a single Uint8Array : the FX thread never parses a script holding the whole document. </br>
+     * A document already encoded in base64 is sent by slices of its base64 form, without encoding it again.
+     */
+    private class BinaryTransfer implements Runnable {
+
+        /**
+         * Size of the chunks. Multiple of 3 so that each chunk is encoded in base64 without padding.
+         */
+        private static final int CHUNK_SIZE = 3 * 256 * 1024;
+
+        /**
+         * Window of the viewer
+         */
+        private final JSObject window;
+
+        /**
+         * Document to transfer
+         */
+        private final DocumentData document;
+
+        /**
+         * Remaining data to transfer
+         */
+        private final ByteBuffer data;
+
+        /**
+         * Constructor
+         * @param window   Window of the viewer
+         * @param document Document to transfer
+         */
+        BinaryTransfer(final JSObject window, final DocumentData document) {
+            this.window = window;
+            this.document = document;
+            this.data = document.getBytes();
+        }
+
+        /**
+         * Start the transfer
+         */
+        void start() {
+            window.call("beginBinaryTransfer", data.remaining());
+            run();
+        }
+
+        @Override
+        public void run() {
+            // A new document has been opened meanwhile
+            if (currentTransfer != this) {
+                return;
+            }
+
+            final int chunkSize = Math.min(CHUNK_SIZE, data.remaining());
+            if (document.isBase64Encoded()) {
+                final int base64Start = data.position() / 3 * 4;
+                final int base64End = Math.min(base64Start + CHUNK_SIZE / 3 * 4, document.getBase64().length());
+                window.call("appendBinaryChunk", document.getBase64().substring(base64Start, base64End));
+            }
+            else {
+                final ByteBuffer chunk = data.slice();
+                chunk.limit(chunkSize);
+                final ByteBuffer base64 = Base64.getEncoder().encode(chunk);
+                window.call("appendBinaryChunk",
+                        new String(base64.array(), 0, base64.remaining(), StandardCharsets.ISO_8859_1));
+            }
+            data.position(data.position() + chunkSize);
+
+            if (onViewerEvent != null) {
+                onViewerEvent.accept("transferprogress", String.valueOf(data.position() / (double) data.limit()));
+            }
 
-            webView.getEngine().getLoadWorker()
-                    .stateProperty()
-                    .addListener(loadingStateListener);
+            if (data.hasRemaining()) {
+                Platform.runLater(this);
+            }
+            else {
+                currentTransfer = null;
+                window.call("endBinaryTransfer");
+            }
         }
     }
 }
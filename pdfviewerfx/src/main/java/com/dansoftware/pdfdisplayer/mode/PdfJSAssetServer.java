@@ -0,0 +1,384 @@
+package com.dansoftware.pdfdisplayer.mode;
+
+import com.dansoftware.pdfdisplayer.PdfJSVersion;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP server providing the pdf viewers (PDF.js) directly from the library jar, for JavaFX apps running on
+ * JPRO server. </br>
+ * Once started, the JPRO web nodes load the viewer from this server instead of the jpro/html folder of the app.
+ * The files are kept in memory with a gzip variant, served with strong ETags, and their URLs contain a hash of
+ * the viewer so that they can be cached by the browsers as immutable. </br>
+ * The viewer is scripted by the JPRO page : the server must be exposed on the origin of the app, typically
+ * behind the same reverse proxy, under the public URL given when starting it. By default, the server only listens
+ * on the loopback interface, for a reverse proxy running on the same host.
+ */
+@Log4j2
+public class PdfJSAssetServer {
+
+    /**
+     * Path of the server context
+     */
+    private static final String CONTEXT_PATH = "/pdfjs/";
+
+    /**
+     * Cache control for the hashed URLs
+     */
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    /**
+     * Files whose content defines the hash of a viewer. The other files only change with the PDF.js version,
+     * which is part of their path.
+     */
+    private static final String[] HASHED_FILES = {
+            "web/viewer.html", "web/viewer.js", "web/viewer.css", "build/pdf.js", "build/pdf.worker.js"};
+
+    /**
+     * Minimal size of the files compressed with gzip
+     */
+    private static final int MIN_COMPRESSED_SIZE = 1024;
+
+    /**
+     * Content types by file extension
+     */
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "html", "text/html; charset=utf-8",
+            "js", "application/javascript; charset=utf-8",
+            "css", "text/css; charset=utf-8",
+            "properties", "text/plain; charset=utf-8",
+            "map", "application/json; charset=utf-8",
+            "svg", "image/svg+xml",
+            "png", "image/png",
+            "gif", "image/gif",
+            "cur", "image/x-icon");
+
+    /**
+     * Server currently started
+     */
+    private static volatile PdfJSAssetServer activeServer;
+
+    /**
+     * Underlying HTTP server
+     */
+    private final HttpServer httpServer;
+
+    /**
+     * Files already loaded, by path
+     */
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+
+    /**
+     * Hashes of the viewers, by root path
+     */
+    private final Map<String, String> viewerHashes = new ConcurrentHashMap<>();
+
+    /**
+     * URL of the server as seen by the browsers, on the origin of the app
+     */
+    @Getter
+    private volatile String publicUrl;
+
+    /**
+     * Constructor
+     * @param address   Address of the server
+     * @param publicUrl URL of the server as seen by the browsers, on the origin of the app
+     * @throws IOException If the server can't be created
+     */
+    private PdfJSAssetServer(final InetSocketAddress address, final String publicUrl) throws IOException {
+        setPublicUrl(publicUrl);
+        httpServer = HttpServer.create(address, 0);
+        httpServer.createContext(CONTEXT_PATH, this::handle);
+        httpServer.setExecutor(Executors.newFixedThreadPool(4, runnable -> {
+            final Thread t = new Thread(runnable, "pdfjs-asset-server");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    /**
+     * Start a server on the loopback interface, reached by the browsers through a reverse proxy
+     * @param port      Port of the server
+     * @param publicUrl URL of the server as seen by the browsers, on the origin of the app
+     * @return The started server
+     * @throws IOException If the server can't be started
+     */
+    public static PdfJSAssetServer start(final int port, final String publicUrl) throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), publicUrl);
+    }
+
+    /**
+     * Start a server. The JPRO web nodes use it from now on.
+     * @param address   Address of the server
+     * @param publicUrl URL of the server as seen by the browsers, on the origin of the app
+     * @return The started server
+     * @throws IOException If the server can't be started
+     * @throws IllegalArgumentException If the public URL isn't defined
+     */
+    public static synchronized PdfJSAssetServer start(final InetSocketAddress address, final String publicUrl)
+            throws IOException {
+        final PdfJSAssetServer server = new PdfJSAssetServer(address, publicUrl);
+        server.httpServer.start();
+        log.info("PDF.js asset server started on " + server.httpServer.getAddress());
+
+        if (activeServer != null) {
+            activeServer.stop();
+        }
+        activeServer = server;
+        return server;
+    }
+
+    /**
+     * Provide the server currently started
+     * @return The server, empty if no server is started
+     */
+    public static Optional<PdfJSAssetServer> getActive() {
+        return Optional.ofNullable(activeServer);
+    }
+
+    /**
+     * Stop the server
+     */
+    public void stop() {
+        synchronized (PdfJSAssetServer.class) {
+            if (activeServer == this) {
+                activeServer = null;
+            }
+        }
+        httpServer.stop(0);
+    }
+
+    /**
+     * Define the URL of the server as seen by the browsers. </br>
+     * The URL must be on the origin of the app : the viewer is scripted by the JPRO page, which a viewer
+     * of another origin refuses.
+     * @param publicUrl The URL, like "https://my-app.com/pdfjs-assets/" or "/pdfjs-assets/"
+     * @throws IllegalArgumentException If the URL isn't defined
+     */
+    public void setPublicUrl(final String publicUrl) {
+        if (publicUrl == null || publicUrl.isBlank()) {
+            throw new IllegalArgumentException("The public URL of the PDF.js asset server must be defined, "
+                    + "on the origin of the app");
+        }
+        this.publicUrl = publicUrl;
+    }
+
+    /**
+     * Provide the URL of a viewer
+     * @param rootPath       Root path of the PDF.js version
+     * @param htmlViewerPath Path of the viewer HTML file
+     * @return The URL of the viewer
+     */
+    String getViewerUrl(final String rootPath, final String htmlViewerPath) {
+        String baseUrl = publicUrl;
+        if (baseUrl.endsWith("/")) {
+            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        }
+        return baseUrl + CONTEXT_PATH + getViewerHash(rootPath) + rootPath + "/" + htmlViewerPath;
+    }
+
+    /**
+     * Provide the hash of a viewer
+     * @param rootPath Root path of the PDF.js version
+     * @return The hash of the viewer
+     */
+    private String getViewerHash(final String rootPath) {
+        return viewerHashes.computeIfAbsent(rootPath, path -> {
+            final MessageDigest digest = sha256();
+            for (final String hashedFile : HASHED_FILES) {
+                final Asset asset = getAsset(path.substring(1) + "/" + hashedFile);
+                if (asset != null) {
+                    digest.update(asset.content);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        });
+    }
+
+    /**
+     * Handle a request
+     * @param exchange Exchange with the browser
+     * @throws IOException If the response can't be sent
+     */
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            final String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            // Path formatted as /pdfjs/{hash}/pdfjs_{version}/{file}
+            final String path = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length());
+            final int hashEnd = path.indexOf('/');
+            final int rootEnd = hashEnd < 0 ? -1 : path.indexOf('/', hashEnd + 1);
+            if (rootEnd < 0 || path.contains("..")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            final String rootPath = path.substring(hashEnd, rootEnd);
+            final boolean knownVersion = Arrays.stream(PdfJSVersion.values())
+                    .anyMatch(version -> version.getRootPath().equals(rootPath));
+            final Asset asset = knownVersion && getViewerHash(rootPath).equals(path.substring(0, hashEnd))
+                    ? getAsset(path.substring(hashEnd + 1))
+                    : null;
+            if (asset == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            final boolean gzip = asset.gzipContent != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+            final String etag = gzip ? asset.gzipEtag : asset.etag;
+
+            final Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", asset.contentType);
+            headers.set("ETag", etag);
+            headers.set("Cache-Control", IMMUTABLE_CACHE_CONTROL);
+            headers.set("Vary", "Accept-Encoding");
+
+            final String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            final byte[] body = gzip ? asset.gzipContent : asset.content;
+            if (gzip) {
+                headers.set("Content-Encoding", "gzip");
+            }
+            if ("HEAD".equals(method)) {
+                headers.set("Content-Length", String.valueOf(body.length));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            }
+        } catch (final RuntimeException e) {
+            log.error("Can't serve " + exchange.getRequestURI() + " : ", e);
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Provide a file, loading it from the library jar on first access
+     * @param path Path of the file in the jar
+     * @return The file, null if it doesn't exist
+     */
+    private Asset getAsset(final String path) {
+        return assets.computeIfAbsent(path, key -> {
+            try (InputStream inputStream = PdfJSAssetServer.class.getResourceAsStream("/" + key)) {
+                return inputStream == null ? null : new Asset(key, inputStream.readAllBytes());
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Create a SHA-256 digest
+     * @return The digest
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * File served, with its gzip variant
+     */
+    private static class Asset {
+
+        /**
+         * Content type of the file
+         */
+        private final String contentType;
+
+        /**
+         * Content of the file
+         */
+        private final byte[] content;
+
+        /**
+         * Strong ETag of the content
+         */
+        private final String etag;
+
+        /**
+         * Content compressed with gzip, null if the compression isn't worth it
+         */
+        private final byte[] gzipContent;
+
+        /**
+         * Strong ETag of the compressed content
+         */
+        private final String gzipEtag;
+
+        /**
+         * Constructor
+         * @param path    Path of the file
+         * @param content Content of the file
+         */
+        Asset(final String path, final byte[] content) throws IOException {
+            final String extension = path.substring(path.lastIndexOf('.') + 1);
+            this.contentType = CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+            this.content = content;
+
+            final String hash = Base64.getUrlEncoder().withoutPadding().encodeToString(sha256().digest(content));
+            this.etag = "\"" + hash + "\"";
+
+            final byte[] compressed = content.length >= MIN_COMPRESSED_SIZE ? gzip(content) : null;
+            if (compressed != null && compressed.length < content.length * 0.9) {
+                this.gzipContent = compressed;
+                this.gzipEtag = "\"" + hash + "-gz\"";
+            }
+            else {
+                this.gzipContent = null;
+                this.gzipEtag = null;
+            }
+        }
+
+        /**
+         * Compress data with gzip
+         * @param data Data to compress
+         * @return The compressed data
+         * @throws IOException If the data can't be compressed
+         */
+        private static byte[] gzip(final byte[] data) throws IOException {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length / 3);
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+                gzipOutputStream.write(data);
+            }
+            return outputStream.toByteArray();
+        }
+    }
+}
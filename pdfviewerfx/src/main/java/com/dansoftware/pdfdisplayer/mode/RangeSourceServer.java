@@ -0,0 +1,154 @@
+package com.dansoftware.pdfdisplayer.mode;
+
+import com.dansoftware.pdfdisplayer.source.IRangeSource;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Serve the ranges of a document requested by the viewer. </br>
+ * The ranges are read out of the calling thread and delivered encoded in base64.
+ */
+@Log4j2
+class RangeSourceServer {
+
+    /**
+     * Size of the data sent with the opening of the document
+     */
+    private static final int INITIAL_DATA_SIZE = 65536;
+
+    /**
+     * Executor reading the ranges
+     */
+    private static final ExecutorService rangeReaderExecutor = Executors.newCachedThreadPool(runnable -> {
+        final Thread t = new Thread(runnable, "pdfviewer-range-reader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Generator of the ids of the served documents
+     */
+    private static final AtomicInteger idGenerator = new AtomicInteger();
+
+    /**
+     * Id of the served document, used by the viewer to tag its requests
+     */
+    @Getter
+    private final int id = idGenerator.incrementAndGet();
+
+    /**
+     * Source of the document
+     */
+    private final IRangeSource source;
+
+    /**
+     * Constructor
+     * @param source Source of the document
+     */
+    RangeSourceServer(final IRangeSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Provide the size of the document
+     * @return The size of the document
+     */
+    long length() {
+        return source.length();
+    }
+
+    /**
+     * Read the beginning of the document
+     * @param consumer Consumer of the data, encoded in base64
+     */
+    void readInitialData(final Consumer<String> consumer) {
+        rangeReaderExecutor.execute(() -> {
+            try {
+                consumer.accept(encode(source.read(0, (int) Math.min(INITIAL_DATA_SIZE, source.length()))));
+            } catch (final IOException e) {
+                log.error("Can't read the beginning of the document : ", e);
+            }
+        });
+    }
+
+    /**
+     * Serve a range requested by the viewer. </br>
+     * The range is clamped to the document. A malformed range, or a range that can't be read, is answered by an error.
+     * @param request       Request of the viewer : "id,begin,end"
+     * @param consumer      Consumer of the range, receiving its beginning and its data encoded in base64
+     * @param errorConsumer Consumer of the error answering a range not served
+     */
+    void serve(final String request, final RangeConsumer consumer, final Consumer<String> errorConsumer) {
+        final String[] parts = request.split(",");
+        final long begin;
+        final long end;
+        try {
+            if (Integer.parseInt(parts[0]) != id) {
+                return;
+            }
+            begin = Long.parseLong(parts[1]);
+            end = Math.min(Long.parseLong(parts[2]), source.length());
+        } catch (final RuntimeException e) {
+            log.error("Malformed range request : " + request);
+            errorConsumer.accept("Malformed range request");
+            return;
+        }
+        if (begin < 0 || end < begin || end - begin > Integer.MAX_VALUE) {
+            log.error("Invalid range " + request + " for a document of " + source.length() + " bytes");
+            errorConsumer.accept("Invalid range " + parts[1] + "-" + parts[2]);
+            return;
+        }
+
+        rangeReaderExecutor.execute(() -> {
+            try {
+                consumer.accept(begin, encode(source.read(begin, (int) (end - begin))));
+            } catch (final IOException | RuntimeException e) {
+                log.error("Can't read the range " + begin + "-" + end + " : ", e);
+                errorConsumer.accept("Can't read the range " + begin + "-" + end);
+            }
+        });
+    }
+
+    /**
+     * Stop serving the document
+     */
+    void close() {
+        try {
+            source.close();
+        } catch (final IOException e) {
+            log.warn("Can't close the source of the document : ", e);
+        }
+    }
+
+    /**
+     * Encode data in base64
+     * @param data Data to encode
+     * @return The encoded data
+     */
+    private static String encode(final ByteBuffer data) {
+        final ByteBuffer base64 = Base64.getEncoder().encode(data);
+        return new String(base64.array(), 0, base64.remaining(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Consumer of the ranges read
+     */
+    @FunctionalInterface
+    interface RangeConsumer {
+        /**
+         * Receive a range
+         * @param begin Position of the range in the document
+         * @param data  Data of the range, encoded in base64
+         */
+        void accept(long begin, String data);
+    }
+}
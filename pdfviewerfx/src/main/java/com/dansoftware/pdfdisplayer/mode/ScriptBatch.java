@@ -0,0 +1,95 @@
+package com.dansoftware.pdfdisplayer.mode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merge of several scripts into a single script, executed in one round trip. </br>
+ * Each script is evaluated on its own, a failing script doesn't prevent the execution of the next ones.
+ * The results are returned in a single string, each result being prefixed by its length ("-1:" for no result).
+ */
+final class ScriptBatch {
+
+    /**
+     * Maximal length of a script merged in a batch. Longer scripts, like documents sent in base64, are executed
+     * on their own to avoid escaping them.
+     */
+    static final int MAX_BATCHED_SCRIPT_LENGTH = 16 * 1024;
+
+    /**
+     * Private constructor
+     */
+    private ScriptBatch() {
+
+    }
+
+    /**
+     * Build the script executing the scripts of a batch
+     * @param scripts Scripts of the batch
+     * @return The script of the batch
+     */
+    static String build(final List<String> scripts) {
+        final StringBuilder builder = new StringBuilder("(function(){var r='';var s=[");
+        for (int i = 0; i < scripts.size(); i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            appendLiteral(builder, scripts.get(i));
+        }
+        return builder.append("];for(var i=0;i<s.length;i++){var v;")
+                .append("try{v=(0,eval)(s[i]);v=(v===undefined||v===null)?null:String(v);}catch(e){v=null;}")
+                .append("r+=(v===null)?'-1:':(v.length+':'+v);}return r;})()")
+                .toString();
+    }
+
+    /**
+     * Append a string as a javascript string literal
+     * @param builder Builder of the script
+     * @param value   String to append
+     */
+    static void appendLiteral(final StringBuilder builder, final String value) {
+        builder.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\'': builder.append("\\'"); break;
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\u2028': builder.append("\\u2028"); break;
+                case '\u2029': builder.append("\\u2029"); break;
+                default: builder.append(c);
+            }
+        }
+        builder.append('\'');
+    }
+
+    /**
+     * Extract the results of the scripts of a batch
+     * @param results Result of the script of the batch
+     * @param count   Number of scripts in the batch
+     * @return The result of each script, null for the scripts without result
+     */
+    static List<String> parseResults(final String results, final int count) {
+        final List<String> parsedResults = new ArrayList<>(count);
+        int position = 0;
+        while (parsedResults.size() < count && results != null && position < results.length()) {
+            final int separator = results.indexOf(':', position);
+            final int length = Integer.parseInt(results.substring(position, separator));
+            if (length < 0) {
+                parsedResults.add(null);
+                position = separator + 1;
+            }
+            else {
+                parsedResults.add(results.substring(separator + 1, separator + 1 + length));
+                position = separator + 1 + length;
+            }
+        }
+
+        // Missing results if the batch itself failed
+        while (parsedResults.size() < count) {
+            parsedResults.add(null);
+        }
+        return parsedResults;
+    }
+}
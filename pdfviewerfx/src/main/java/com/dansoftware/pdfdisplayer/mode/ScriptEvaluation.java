@@ -0,0 +1,98 @@
+package com.dansoftware.pdfdisplayer.mode;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Evaluation of an expression in the window of the viewer, returning its result with the same encoding
+ * whatever the web node : "-" for no result, ":" followed by the result as a string, or "!" followed by the error.
+ */
+final class ScriptEvaluation {
+
+    /**
+     * Private constructor
+     */
+    private ScriptEvaluation() {
+
+    }
+
+    /**
+     * Build the script evaluating an expression
+     * @param windowAccessor Script code to access the window of the viewer
+     * @param expression     Expression to evaluate
+     * @return The script of the evaluation
+     */
+    static String build(final String windowAccessor, final String expression) {
+        final StringBuilder builder = new StringBuilder("(function(){try{var v=")
+                .append(windowAccessor)
+                .append("eval(");
+        ScriptBatch.appendLiteral(builder, expression);
+        return builder.append(");return (v===undefined||v===null)?'-':':'+String(v);}catch(e){return '!'+e;}})()")
+                .toString();
+    }
+
+    /**
+     * Complete the future of an evaluation with the result of its script
+     * @param future Future of the evaluation
+     * @param result Result of the script
+     */
+    static void complete(final CompletableFuture<String> future, final Object result) {
+        final String value = result == null ? "" : result.toString();
+        if (value.startsWith("-")) {
+            future.complete(null);
+        }
+        else if (value.startsWith(":")) {
+            future.complete(value.substring(1));
+        }
+        else if (value.startsWith("!")) {
+            future.completeExceptionally(new IllegalStateException("Evaluation failed : " + value.substring(1)));
+        }
+        else {
+            future.completeExceptionally(new IllegalStateException("No result received for the evaluation"));
+        }
+    }
+
+    /**
+     * Check that the result of an evaluation can be converted to a type
+     * @param type The type
+     */
+    static void checkSupported(final Class<?> type) {
+        if (type != String.class && type != Boolean.class && type != Integer.class
+                && type != Long.class && type != Double.class) {
+            throw new IllegalArgumentException("Unsupported result type : " + type.getName());
+        }
+    }
+
+    /**
+     * Convert the result of an evaluation
+     * @param value Result of the evaluation
+     * @param type  Type of the converted result
+     * @param <T>   Type of the converted result
+     * @return The converted result, null if the evaluation has no result
+     */
+    static <T> T convert(final String value, final Class<T> type) {
+        if (value == null) {
+            return null;
+        }
+
+        final Object converted;
+        if (type == String.class) {
+            converted = value;
+        }
+        else if (type == Boolean.class) {
+            converted = Boolean.valueOf(value);
+        }
+        else if (type == Integer.class) {
+            converted = (int) Double.parseDouble(value);
+        }
+        else if (type == Long.class) {
+            converted = (long) Double.parseDouble(value);
+        }
+        else if (type == Double.class) {
+            converted = Double.parseDouble(value);
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported result type : " + type.getName());
+        }
+        return type.cast(converted);
+    }
+}
@@ -0,0 +1,29 @@
+package com.dansoftware.pdfdisplayer.mode;
+
+/**
+ * Bounded form of the scripts written in the logs. </br>
+ * The scripts can hold whole documents in base64 : only their beginning is traced, and only when the
+ * log level is enabled, by passing a supplier to the logger.
+ */
+final class ScriptTrace {
+
+    /**
+     * Maximal count of characters of a script written in the logs
+     */
+    static final int MAX_TRACED_LENGTH = 256;
+
+    private ScriptTrace() {
+    }
+
+    /**
+     * Provide the bounded form of a script
+     * @param code The script
+     * @return The script, cut after {@link #MAX_TRACED_LENGTH} characters
+     */
+    static String abbreviate(final String code) {
+        if (code == null || code.length() <= MAX_TRACED_LENGTH) {
+            return code;
+        }
+        return code.substring(0, MAX_TRACED_LENGTH) + "... (" + code.length() + " characters)";
+    }
+}
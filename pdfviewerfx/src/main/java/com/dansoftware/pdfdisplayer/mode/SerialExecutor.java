@@ -0,0 +1,79 @@
+package com.dansoftware.pdfdisplayer.mode;
+
+import com.dansoftware.pdfdisplayer.metrics.Metrics;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor running its tasks one at a time, in submission order, on a shared executor. </br>
+ * Gives each web node its own ordered lane : a slow browser only delays the tasks of its own lane, while the
+ * lanes of the other nodes run in parallel.
+ */
+@Log4j2
+class SerialExecutor implements Executor {
+
+    /**
+     * Count of the tasks waiting in all the lanes
+     */
+    private static final AtomicInteger queuedTaskCount = new AtomicInteger();
+
+    static {
+        Metrics.registerGauge(Metrics.EXECUTOR_QUEUE_LENGTH, queuedTaskCount::get);
+    }
+
+    /**
+     * Executor running the tasks
+     */
+    private final Executor executor;
+
+    /**
+     * Tasks waiting for the end of the active task
+     */
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    /**
+     * Task currently submitted to the executor
+     */
+    private Runnable activeTask;
+
+    /**
+     * Constructor
+     * @param executor Executor running the tasks
+     */
+    SerialExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public synchronized void execute(final Runnable task) {
+        tasks.add(() -> {
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                log.error("Task failed : ", e);
+            } finally {
+                scheduleNext();
+            }
+        });
+        queuedTaskCount.incrementAndGet();
+
+        if (activeTask == null) {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * Submit the next task to the executor
+     */
+    private synchronized void scheduleNext() {
+        activeTask = tasks.poll();
+        if (activeTask != null) {
+            queuedTaskCount.decrementAndGet();
+            executor.execute(activeTask);
+        }
+    }
+}
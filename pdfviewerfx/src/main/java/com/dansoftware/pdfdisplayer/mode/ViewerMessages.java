@@ -0,0 +1,49 @@
+package com.dansoftware.pdfdisplayer.mode;
+
+/**
+ * Types of the messages sent by the pdf viewer to the java side
+ */
+final class ViewerMessages {
+
+    /**
+     * The viewer is initialized and can receive scripts
+     */
+    static final String READY = "ready";
+
+    /**
+     * The viewer requests a range of the document loaded by ranges : "id,begin,end"
+     */
+    static final String RANGE = "range";
+
+    /**
+     * An event of the viewer : "name,value"
+     */
+    static final String EVENT = "event";
+
+    /**
+     * A part of a page image rendered on request : "id,chunk,base64", then "id,end," or "id,error,message"
+     */
+    static final String IMAGE = "image";
+
+    /**
+     * Name of the viewer event forwarding the image messages
+     */
+    static final String PAGE_IMAGE_EVENT = "pageimage";
+
+    /**
+     * The text of a page extracted on request : "id,page,text", then "id,end,pageCount" or "id,error,message"
+     */
+    static final String TEXT = "text";
+
+    /**
+     * Name of the viewer event forwarding the text messages
+     */
+    static final String PAGE_TEXT_EVENT = "pagetext";
+
+    /**
+     * Private constructor
+     */
+    private ViewerMessages() {
+
+    }
+}
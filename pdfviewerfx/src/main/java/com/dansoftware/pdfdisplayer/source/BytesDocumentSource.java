@@ -0,0 +1,37 @@
+package com.dansoftware.pdfdisplayer.source;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Source of a document already in memory. The content isn't copied.
+ */
+public class BytesDocumentSource implements IDocumentSource {
+
+    /**
+     * Content of the document
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * Constructor
+     * @param bytes Content of the document, from its position to its limit. Mustn't be modified.
+     */
+    public BytesDocumentSource(final ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Constructor
+     * @param bytes Content of the document. Mustn't be modified.
+     */
+    public BytesDocumentSource(final byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public DocumentData read(final String cachedValidator, final IReadListener listener) {
+        final DocumentData document = new DocumentData(bytes);
+        listener.onProgress(document.size(), document.size());
+        return document;
+    }
+}
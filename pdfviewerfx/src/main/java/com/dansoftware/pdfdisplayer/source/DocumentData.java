@@ -0,0 +1,144 @@
+package com.dansoftware.pdfdisplayer.source;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Content of a pdf document loaded in memory. </br>
+ * The base64 form of the content, used to send the document to the viewer, is computed once and kept :
+ * a document opened several times, for instance from the {@link com.dansoftware.pdfdisplayer.cache.DocumentCache},
+ * is only encoded once.
+ */
+public final class DocumentData {
+
+    /**
+     * Content of the document
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * Validator of the content, like the ETag of a remote document. Can be null.
+     */
+    private final String validator;
+
+    /**
+     * Content of the document encoded in base64, null until requested
+     */
+    private volatile String base64;
+
+    /**
+     * SHA-256 hash of the content in hexadecimal, null until requested
+     */
+    private volatile String contentHash;
+
+    /**
+     * Constructor
+     * @param bytes Content of the document, from its position to its limit. Not copied : mustn't be modified.
+     */
+    public DocumentData(final ByteBuffer bytes) {
+        this(bytes, null);
+    }
+
+    /**
+     * Constructor
+     * @param bytes     Content of the document, from its position to its limit. Not copied : mustn't be modified.
+     * @param validator Validator of the content, like the ETag of a remote document. Can be null.
+     */
+    public DocumentData(final ByteBuffer bytes, final String validator) {
+        this.bytes = bytes.slice().asReadOnlyBuffer();
+        this.validator = validator;
+    }
+
+    /**
+     * Create the data of a document from an array
+     * @param bytes Content of the document. Not copied : mustn't be modified.
+     * @return The data of the document
+     */
+    public static DocumentData of(final byte[] bytes) {
+        return new DocumentData(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Provide the content of the document
+     * @return Read only buffer on the content of the document
+     */
+    public ByteBuffer getBytes() {
+        return bytes.duplicate();
+    }
+
+    /**
+     * Provide the validator of the content, like the ETag of a remote document
+     * @return The validator, empty if the content has no validator
+     */
+    public Optional<String> getValidator() {
+        return Optional.ofNullable(validator);
+    }
+
+    /**
+     * Provide the size of the document
+     * @return The size of the document, in bytes
+     */
+    public int size() {
+        return bytes.remaining();
+    }
+
+    /**
+     * Provide the content of the document encoded in base64, encoding it on the first call
+     * @return The content of the document encoded in base64
+     */
+    public String getBase64() {
+        String encoded = base64;
+        if (encoded == null) {
+            synchronized (this) {
+                encoded = base64;
+                if (encoded == null) {
+                    final ByteBuffer encodedBytes = Base64.getEncoder().encode(getBytes());
+                    encoded = new String(encodedBytes.array(), 0, encodedBytes.remaining(), StandardCharsets.ISO_8859_1);
+                    base64 = encoded;
+                }
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Provide the SHA-256 hash of the content, computing it on the first call
+     * @return The hash of the content, in hexadecimal
+     */
+    public String getContentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            try {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                digest.update(getBytes());
+                hash = HexFormat.of().formatHex(digest.digest());
+                contentHash = hash;
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Provide whether the base64 form of the content is already computed
+     * @return True if the content is already encoded in base64
+     */
+    public boolean isBase64Encoded() {
+        return base64 != null;
+    }
+
+    /**
+     * Provide the memory used by the document
+     * @return The memory used by the content and its base64 form, in bytes
+     */
+    public long getMemorySize() {
+        final String encoded = base64;
+        return size() + (encoded == null ? 0 : encoded.length());
+    }
+}
@@ -0,0 +1,60 @@
+package com.dansoftware.pdfdisplayer.source;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Range source reading a local file through a {@link FileChannel}. </br>
+ * Reads are positional, so ranges can be served concurrently.
+ */
+public class FileRangeSource implements IRangeSource {
+
+    /**
+     * Channel on the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Size of the file
+     */
+    private final long length;
+
+    /**
+     * Constructor
+     * @param path Path of the file
+     * @throws IOException If the file can't be opened
+     */
+    public FileRangeSource(final Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.length = channel.size();
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public ByteBuffer read(final long position, final int length) throws IOException {
+        if (position < 0 || length < 0 || position > this.length) {
+            throw new EOFException("Range " + position + "+" + length + " outside of the file of "
+                    + this.length + " bytes");
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, this.length - position));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file at " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,168 @@
+package com.dansoftware.pdfdisplayer.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Stream of the body of an http response, requested buffer by buffer as it is read. </br>
+ * Unlike the stream of {@link java.net.http.HttpResponse.BodyHandlers#ofInputStream()}, which keeps waiting for the
+ * data of a stalled response, the reading stops when the reading thread is interrupted : the response is then
+ * cancelled.
+ */
+final class HttpBodyInputStream extends InputStream implements Flow.Subscriber<List<ByteBuffer>> {
+
+    /**
+     * Signal of the end of the body, compared by identity
+     */
+    private static final List<ByteBuffer> END = new ArrayList<>(0);
+
+    /**
+     * Buffers received and not read yet
+     */
+    private final BlockingQueue<List<ByteBuffer>> received = new LinkedBlockingQueue<>();
+
+    /**
+     * Subscription to the body, null until subscribed
+     */
+    private volatile Flow.Subscription subscription;
+
+    /**
+     * Error ending the body, null if none
+     */
+    private volatile Throwable error;
+
+    /**
+     * Whether the stream is closed
+     */
+    private volatile boolean closed;
+
+    /**
+     * Buffers being read
+     */
+    private Iterator<ByteBuffer> buffers;
+
+    /**
+     * Buffer being read, null before the first reading
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Whether the end of the body has been read
+     */
+    private boolean ended;
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (closed) {
+            subscription.cancel();
+        }
+        else {
+            subscription.request(1);
+        }
+    }
+
+    @Override
+    public void onNext(final List<ByteBuffer> item) {
+        received.offer(item);
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        error = throwable;
+        received.offer(END);
+    }
+
+    @Override
+    public void onComplete() {
+        received.offer(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final ByteBuffer current = current();
+        return current == null ? -1 : current.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        final ByteBuffer current = current();
+        if (current == null) {
+            return -1;
+        }
+        final int count = Math.min(length, current.remaining());
+        current.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        final ByteBuffer current = buffer;
+        return current == null ? 0 : current.remaining();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            final Flow.Subscription currentSubscription = subscription;
+            if (currentSubscription != null) {
+                currentSubscription.cancel();
+            }
+            received.clear();
+        }
+    }
+
+    /**
+     * Provide the buffer to read, waiting for the next buffers of the body if needed
+     * @return The buffer, with remaining bytes. Null at the end of the body.
+     * @throws IOException If the body failed, or the reading thread has been interrupted
+     */
+    private ByteBuffer current() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (buffer == null || !buffer.hasRemaining()) {
+            if (buffers != null && buffers.hasNext()) {
+                buffer = buffers.next();
+                continue;
+            }
+            if (ended) {
+                return null;
+            }
+
+            final List<ByteBuffer> next;
+            try {
+                next = received.take();
+            } catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Reading interrupted");
+            }
+            if (next == END) {
+                ended = true;
+                final Throwable currentError = error;
+                if (currentError != null) {
+                    throw currentError instanceof IOException
+                            ? (IOException) currentError
+                            : new IOException(currentError);
+                }
+                return null;
+            }
+            buffers = next.iterator();
+            subscription.request(1);
+        }
+        return buffer;
+    }
+}
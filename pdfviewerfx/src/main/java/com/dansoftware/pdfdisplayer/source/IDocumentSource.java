@@ -0,0 +1,40 @@
+package com.dansoftware.pdfdisplayer.source;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Source of a pdf document read entirely in memory. </br>
+ * The readings are interrupted when the reading thread is interrupted.
+ */
+public interface IDocumentSource {
+
+    /**
+     * Provide the key identifying the content of the source in the document cache : two sources with the same key
+     * have the same content, and a cached document with this key is reused without reading the source.
+     * @return The key, empty if the content can't be identified before being read
+     * @throws IOException If the key can't be computed
+     */
+    default Optional<String> getCacheKey() throws IOException {
+        return Optional.empty();
+    }
+
+    /**
+     * Provide the key of the source in the document cache, for a content identified by its validator
+     * (like an ETag) : a cached document with this key is reused if the source confirms it isn't modified.
+     * @return The key, empty if the source doesn't support the revalidation
+     */
+    default Optional<String> getRevalidationKey() {
+        return Optional.empty();
+    }
+
+    /**
+     * Read the document
+     * @param cachedValidator Validator of the cached document with the revalidation key, null if none
+     * @param listener        Listener of the progress of the reading
+     * @return The document, null if the cached document is still valid
+     * @throws IOException          If the document can't be read
+     * @throws InterruptedException If the reading is interrupted
+     */
+    DocumentData read(String cachedValidator, IReadListener listener) throws IOException, InterruptedException;
+}
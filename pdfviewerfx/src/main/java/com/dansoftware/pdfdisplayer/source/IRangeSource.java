@@ -0,0 +1,28 @@
+package com.dansoftware.pdfdisplayer.source;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Source of a pdf document providing its content by ranges. </br>
+ * Used to open a document in the viewer without reading it entirely : the viewer only requests the ranges
+ * it needs (xref, pages being viewed).
+ */
+public interface IRangeSource extends Closeable {
+
+    /**
+     * Provide the size of the document
+     * @return The size of the document, in bytes
+     */
+    long length();
+
+    /**
+     * Read a range of the document
+     * @param position Position of the first byte to read
+     * @param length   Number of bytes to read
+     * @return Buffer containing the bytes read
+     * @throws IOException If the range can't be read
+     */
+    ByteBuffer read(long position, int length) throws IOException;
+}
@@ -0,0 +1,15 @@
+package com.dansoftware.pdfdisplayer.source;
+
+/**
+ * Listener of the progress of the reading of a document
+ */
+@FunctionalInterface
+public interface IReadListener {
+
+    /**
+     * Method called when bytes of the document are read
+     * @param readBytes  Number of bytes read so far
+     * @param totalBytes Size of the document, -1 if unknown
+     */
+    void onProgress(long readBytes, long totalBytes);
+}
@@ -0,0 +1,64 @@
+package com.dansoftware.pdfdisplayer.source;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Source reading a local file. </br>
+ * The size of the file is known up front : the file is read directly into a buffer of its exact size.
+ */
+public class PathDocumentSource implements IDocumentSource {
+
+    /**
+     * Size of the blocks read between two progress notifications
+     */
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * Path of the file
+     */
+    private final Path path;
+
+    /**
+     * Constructor
+     * @param path Path of the file
+     */
+    public PathDocumentSource(final Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public Optional<String> getCacheKey() throws IOException {
+        return Optional.of("file:" + path.toAbsolutePath().normalize()
+                + "@" + Files.getLastModifiedTime(path).toMillis() + ":" + Files.size(path));
+    }
+
+    @Override
+    public DocumentData read(final String cachedValidator, final IReadListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large to be loaded in memory : " + path);
+            }
+
+            final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                buffer.limit(Math.min(buffer.capacity(), buffer.position() + BLOCK_SIZE));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new EOFException("Unexpected end of file at " + buffer.position() + " : " + path);
+                    }
+                }
+                buffer.limit(buffer.capacity());
+                listener.onProgress(buffer.position(), size);
+            }
+            return new DocumentData(buffer.flip());
+        }
+    }
+}
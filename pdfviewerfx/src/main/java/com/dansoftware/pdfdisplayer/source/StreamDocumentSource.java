@@ -0,0 +1,104 @@
+package com.dansoftware.pdfdisplayer.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Source reading a stream, closed once read. </br>
+ * The stream is read directly into a buffer presized from the expected size, without intermediate copy.
+ */
+public class StreamDocumentSource implements IDocumentSource {
+
+    /**
+     * Initial size of the buffer when the size of the document is unknown
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximal size of a document loaded in memory
+     */
+    private static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Stream of the document
+     */
+    private final InputStream inputStream;
+
+    /**
+     * Size of the document, -1 if unknown
+     */
+    private final long size;
+
+    /**
+     * Constructor
+     * @param inputStream Stream of the document
+     * @param size        Size of the document, -1 if unknown
+     */
+    public StreamDocumentSource(final InputStream inputStream, final long size) {
+        this.inputStream = inputStream;
+        this.size = size;
+    }
+
+    /**
+     * Constructor, the size of the document being unknown
+     * @param inputStream Stream of the document
+     */
+    public StreamDocumentSource(final InputStream inputStream) {
+        this(inputStream, -1);
+    }
+
+    @Override
+    public DocumentData read(final String cachedValidator, final IReadListener listener) throws IOException {
+        return read(inputStream, size, null, listener);
+    }
+
+    /**
+     * Read a stream entirely, then close it
+     * @param inputStream Stream of the document
+     * @param size        Size of the document, -1 if unknown
+     * @param validator   Validator of the document, can be null
+     * @param listener    Listener of the progress of the reading
+     * @return The document
+     * @throws IOException If the stream can't be read, or if the thread is interrupted
+     */
+    static DocumentData read(final InputStream inputStream, final long size, final String validator,
+                             final IReadListener listener) throws IOException {
+        try (inputStream) {
+            if (size > MAX_SIZE) {
+                throw new IOException("Document too large to be loaded in memory : " + size + " bytes");
+            }
+
+            byte[] buffer = new byte[size >= 0 ? (int) size : Math.max(DEFAULT_BUFFER_SIZE, inputStream.available())];
+            long count = 0;
+            while (true) {
+                if (count == buffer.length) {
+                    // A stream without size, or longer than announced : probing before growing the buffer
+                    final int next = inputStream.read();
+                    if (next < 0) {
+                        break;
+                    }
+                    if (buffer.length == MAX_SIZE) {
+                        throw new IOException("Document too large to be loaded in memory");
+                    }
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(MAX_SIZE, Math.max(DEFAULT_BUFFER_SIZE, buffer.length * 2L)));
+                    buffer[(int) count++] = (byte) next;
+                }
+
+                final int read = inputStream.read(buffer, (int) count, buffer.length - (int) count);
+                if (read < 0) {
+                    break;
+                }
+                count += read;
+                listener.onProgress(count, size);
+
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Reading interrupted");
+                }
+            }
+            return new DocumentData(ByteBuffer.wrap(buffer, 0, (int) count), validator);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.dansoftware.pdfdisplayer.source;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+
+/**
+ * Source reading a remote document. </br>
+ * The http documents are requested with a shared {@link HttpClient}, their size being taken from their
+ * Content-Length, and revalidated with their ETag. The other urls are read through their {@link URLConnection}.
+ */
+public class UrlDocumentSource implements IDocumentSource {
+
+    /**
+     * Client shared by the http sources
+     */
+    private static final HttpClient httpClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    /**
+     * Url of the document
+     */
+    private final URL url;
+
+    /**
+     * Constructor
+     * @param url Url of the document
+     */
+    public UrlDocumentSource(final URL url) {
+        this.url = url;
+    }
+
+    @Override
+    public Optional<String> getRevalidationKey() {
+        return isHttp() ? Optional.of("url:" + url.toExternalForm()) : Optional.empty();
+    }
+
+    @Override
+    public DocumentData read(final String cachedValidator, final IReadListener listener)
+            throws IOException, InterruptedException {
+        if (!isHttp()) {
+            final URLConnection connection = url.openConnection();
+            return StreamDocumentSource.read(connection.getInputStream(), connection.getContentLengthLong(), null, listener);
+        }
+
+        final HttpRequest.Builder request = HttpRequest.newBuilder(toURI()).GET();
+        if (cachedValidator != null) {
+            request.header("If-None-Match", cachedValidator);
+        }
+
+        // Interrupting the loading thread cancels the request, while waiting for the headers or reading the body
+        final HttpResponse<Flow.Publisher<List<ByteBuffer>>> response =
+                httpClient.send(request.build(), HttpResponse.BodyHandlers.ofPublisher());
+        final HttpBodyInputStream body = new HttpBodyInputStream();
+        response.body().subscribe(body);
+
+        if (response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            body.close();
+            return null;
+        }
+        if (response.statusCode() / 100 != 2) {
+            body.close();
+            throw new IOException("HTTP " + response.statusCode() + " while loading " + url);
+        }
+
+        return StreamDocumentSource.read(body,
+                response.headers().firstValueAsLong("Content-Length").orElse(-1),
+                response.headers().firstValue("ETag").orElse(null),
+                listener);
+    }
+
+    /**
+     * Provide whether the document is requested with the http client
+     * @return True for the http and https urls
+     */
+    private boolean isHttp() {
+        return "http".equalsIgnoreCase(url.getProtocol()) || "https".equalsIgnoreCase(url.getProtocol());
+    }
+
+    /**
+     * Convert the url of the document
+     * @return The uri of the document
+     * @throws IOException If the url isn't a valid uri
+     */
+    private URI toURI() throws IOException {
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid url : " + url, e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.dansoftware.pdfdisplayer.text;
+
+import lombok.Getter;
+
+/**
+ * Text of a page, extracted by PDF.js as read by the find controller of the viewer, its lines separated by line breaks
+ */
+@Getter
+public class PageText {
+
+    /**
+     * Number of the page, from 1
+     */
+    private final int pageNumber;
+
+    /**
+     * Text of the page
+     */
+    private final String text;
+
+    /**
+     * Constructor
+     * @param pageNumber Number of the page, from 1
+     * @param text       Text of the page
+     */
+    public PageText(final int pageNumber, final String text) {
+        this.pageNumber = pageNumber;
+        this.text = text;
+    }
+
+    @Override
+    public String toString() {
+        return "page=" + pageNumber + ", length=" + text.length();
+    }
+}
@@ -0,0 +1,38 @@
+package com.dansoftware.pdfdisplayer.text;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Occurrence of a query in a page of an indexed document
+ * @see TextIndex#search(String)
+ */
+@Builder
+@Getter
+public class SearchHit {
+
+    /**
+     * Id of the document
+     */
+    private final String documentId;
+
+    /**
+     * Number of the page, from 1
+     */
+    private final int pageNumber;
+
+    /**
+     * Position of the occurrence in the text of the page
+     */
+    private final int offset;
+
+    /**
+     * Length of the occurrence in the text of the page
+     */
+    private final int length;
+
+    @Override
+    public String toString() {
+        return "document=" + documentId + ", page=" + pageNumber + ", offset=" + offset + ", length=" + length;
+    }
+}
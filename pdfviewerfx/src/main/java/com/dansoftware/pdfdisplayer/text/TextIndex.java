@@ -0,0 +1,337 @@
+package com.dansoftware.pdfdisplayer.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index of the text of documents. </br>
+ * The text is split into words, the runs of letters and digits, compared without case. A query matches consecutive
+ * words of a page : all its words exactly but the last one, matched as a prefix. For example "AB-12" matches
+ * "ab-1234" and "AB 125". The pages can be added while they are extracted, and the documents removed at any time.
+ * @see TextIndexer
+ */
+public class TextIndex {
+
+    /**
+     * Occurrences of the words, by word then by document
+     */
+    private final TreeMap<String, Map<String, Occurrences>> words = new TreeMap<>();
+
+    /**
+     * Words of the documents, by document in their indexing order
+     */
+    private final Map<String, Set<String>> documentWords = new LinkedHashMap<>();
+
+    /**
+     * Index a document, replacing the document already indexed with this id
+     * @param documentId Id of the document
+     * @param pages      Text of the pages of the document
+     */
+    public synchronized void add(final String documentId, final Collection<PageText> pages) {
+        remove(documentId);
+        pages.forEach(page -> addPage(documentId, page));
+    }
+
+    /**
+     * Index a page of a document, to index a document while it is extracted. Each page must be added once.
+     * @param documentId Id of the document
+     * @param page       Text of the page
+     */
+    public synchronized void addPage(final String documentId, final PageText page) {
+        final Set<String> indexedWords = documentWords.computeIfAbsent(documentId, id -> new HashSet<>());
+        forEachWord(page.getText(), (word, index, offset, length) -> {
+            words.computeIfAbsent(word, key -> new HashMap<>())
+                    .computeIfAbsent(documentId, id -> new Occurrences())
+                    .add(page.getPageNumber(), index, offset, length);
+            indexedWords.add(word);
+        });
+    }
+
+    /**
+     * Remove a document from the index
+     * @param documentId Id of the document
+     */
+    public synchronized void remove(final String documentId) {
+        final Set<String> indexedWords = documentWords.remove(documentId);
+        if (indexedWords == null) {
+            return;
+        }
+        for (final String word : indexedWords) {
+            final Map<String, Occurrences> occurrences = words.get(word);
+            occurrences.remove(documentId);
+            if (occurrences.isEmpty()) {
+                words.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Remove all the documents from the index
+     */
+    public synchronized void clear() {
+        words.clear();
+        documentWords.clear();
+    }
+
+    /**
+     * Provide whether a document is indexed
+     * @param documentId Id of the document
+     * @return True if at least a page of the document is indexed
+     */
+    public synchronized boolean contains(final String documentId) {
+        return documentWords.containsKey(documentId);
+    }
+
+    /**
+     * Provide the ids of the indexed documents
+     * @return The ids, in their indexing order
+     */
+    public synchronized Set<String> getDocumentIds() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(documentWords.keySet()));
+    }
+
+    /**
+     * Provide the number of distinct words in the index
+     * @return The number of words
+     */
+    public synchronized int getWordCount() {
+        return words.size();
+    }
+
+    /**
+     * Search a text in the indexed documents
+     * @param query The text, its last word matched as a prefix
+     * @return The occurrences, by document in their indexing order, then by page and position
+     */
+    public List<SearchHit> search(final String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Search a text in the indexed documents
+     * @param query   The text, its last word matched as a prefix
+     * @param maxHits Maximal number of occurrences returned
+     * @return The first occurrences, by document in their indexing order, then by page and position
+     */
+    public synchronized List<SearchHit> search(final String query, final int maxHits) {
+        final List<String> queryWords = new ArrayList<>();
+        forEachWord(query, (word, index, offset, length) -> queryWords.add(word));
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+
+        // Matches of the first word, extended to the following words
+        final Map<String, List<Match>> matches = new HashMap<>();
+        occurrences(queryWords.get(0), queryWords.size() == 1).forEach((documentId, documentOccurrences) -> {
+            final List<Match> documentMatches = new ArrayList<>();
+            for (final Occurrences occurrences : documentOccurrences) {
+                for (int i = 0; i < occurrences.size; i += Occurrences.FIELDS) {
+                    final int[] values = occurrences.values;
+                    documentMatches.add(new Match(values[i], values[i + 1], values[i + 2], values[i + 2] + values[i + 3]));
+                }
+            }
+            matches.put(documentId, documentMatches);
+        });
+
+        for (int wordIndex = 1; wordIndex < queryWords.size() && !matches.isEmpty(); wordIndex++) {
+            final Map<String, List<Occurrences>> nextOccurrences =
+                    occurrences(queryWords.get(wordIndex), wordIndex == queryWords.size() - 1);
+            matches.keySet().retainAll(nextOccurrences.keySet());
+            for (final Map.Entry<String, List<Match>> entry : matches.entrySet()) {
+                // End of the next words, by page and position
+                final Map<Long, Integer> ends = new HashMap<>();
+                for (final Occurrences occurrences : nextOccurrences.get(entry.getKey())) {
+                    final int[] values = occurrences.values;
+                    for (int i = 0; i < occurrences.size; i += Occurrences.FIELDS) {
+                        ends.put(position(values[i], values[i + 1]), values[i + 2] + values[i + 3]);
+                    }
+                }
+
+                final int followingIndex = wordIndex;
+                entry.getValue().removeIf(match -> {
+                    final Integer end = ends.get(position(match.pageNumber, match.wordIndex + followingIndex));
+                    if (end == null) {
+                        return true;
+                    }
+                    match.end = end;
+                    return false;
+                });
+            }
+            matches.values().removeIf(List::isEmpty);
+        }
+
+        final List<SearchHit> hits = new ArrayList<>();
+        for (final String documentId : documentWords.keySet()) {
+            final List<Match> documentMatches = matches.get(documentId);
+            if (documentMatches == null) {
+                continue;
+            }
+            documentMatches.sort(Comparator.comparingInt((Match match) -> match.pageNumber)
+                    .thenComparingInt(match -> match.offset));
+            for (final Match match : documentMatches) {
+                if (hits.size() >= maxHits) {
+                    return hits;
+                }
+                hits.add(SearchHit.builder()
+                        .documentId(documentId)
+                        .pageNumber(match.pageNumber)
+                        .offset(match.offset)
+                        .length(match.end - match.offset)
+                        .build());
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Provide the occurrences of a word, or of the words starting with a prefix
+     * @param word   The word or the prefix
+     * @param prefix Whether the word is a prefix
+     * @return The occurrences by document
+     */
+    private Map<String, List<Occurrences>> occurrences(final String word, final boolean prefix) {
+        final Collection<Map<String, Occurrences>> wordOccurrences = prefix
+                ? words.subMap(word, true, word + Character.MAX_VALUE, false).values()
+                : words.containsKey(word) ? List.of(words.get(word)) : List.of();
+
+        final Map<String, List<Occurrences>> occurrences = new HashMap<>();
+        for (final Map<String, Occurrences> documentOccurrences : wordOccurrences) {
+            documentOccurrences.forEach((documentId, occurrence) ->
+                    occurrences.computeIfAbsent(documentId, id -> new ArrayList<>()).add(occurrence));
+        }
+        return occurrences;
+    }
+
+    /**
+     * Provide the key of the position of a word in a document
+     * @param pageNumber Number of the page
+     * @param wordIndex  Index of the word in the page
+     * @return The key
+     */
+    private static long position(final int pageNumber, final int wordIndex) {
+        return ((long) pageNumber << 32) | (wordIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Split a text into lower case words
+     * @param text     The text
+     * @param consumer Consumer of the words
+     */
+    private static void forEachWord(final String text, final WordConsumer consumer) {
+        int wordIndex = 0;
+        int start = -1;
+        int i = 0;
+        while (i < text.length()) {
+            final int codePoint = text.codePointAt(i);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (start < 0) {
+                    start = i;
+                }
+            }
+            else if (start >= 0) {
+                consumer.accept(text.substring(start, i).toLowerCase(Locale.ROOT), wordIndex++, start, i - start);
+                start = -1;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (start >= 0) {
+            consumer.accept(text.substring(start).toLowerCase(Locale.ROOT), wordIndex, start, text.length() - start);
+        }
+    }
+
+    /**
+     * Consumer of the words of a text
+     */
+    @FunctionalInterface
+    private interface WordConsumer {
+        /**
+         * Method called for each word
+         * @param word   The word, in lower case
+         * @param index  Index of the word in the text
+         * @param offset Position of the word in the text
+         * @param length Length of the word in the text
+         */
+        void accept(String word, int index, int offset, int length);
+    }
+
+    /**
+     * Occurrences of a word in a document, packed as page number, word index, offset and length
+     */
+    private static class Occurrences {
+        /**
+         * Number of values of an occurrence
+         */
+        private static final int FIELDS = 4;
+
+        /**
+         * Values of the occurrences
+         */
+        private int[] values = new int[FIELDS * 2];
+
+        /**
+         * Number of values used
+         */
+        private int size;
+
+        /**
+         * Add an occurrence
+         * @param pageNumber Number of the page
+         * @param wordIndex  Index of the word in the page
+         * @param offset     Position of the word in the page
+         * @param length     Length of the word in the page
+         */
+        void add(final int pageNumber, final int wordIndex, final int offset, final int length) {
+            if (size + FIELDS > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = pageNumber;
+            values[size++] = wordIndex;
+            values[size++] = offset;
+            values[size++] = length;
+        }
+    }
+
+    /**
+     * Match of a query, extended word by word
+     */
+    private static class Match {
+        /**
+         * Number of the page
+         */
+        private final int pageNumber;
+
+        /**
+         * Index of the first word in the page
+         */
+        private final int wordIndex;
+
+        /**
+         * Position of the first word in the page
+         */
+        private final int offset;
+
+        /**
+         * End of the last matched word in the page
+         */
+        private int end;
+
+        Match(final int pageNumber, final int wordIndex, final int offset, final int end) {
+            this.pageNumber = pageNumber;
+            this.wordIndex = wordIndex;
+            this.offset = offset;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.dansoftware.pdfdisplayer.text;
+
+import com.dansoftware.pdfdisplayer.LoadingStage;
+import com.dansoftware.pdfdisplayer.PDFDisplayer;
+import com.dansoftware.pdfdisplayer.PDFDisplayerPool;
+import com.dansoftware.pdfdisplayer.PdfJSVersion;
+import com.dansoftware.pdfdisplayer.source.IDocumentSource;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Indexer of the text of many documents, extracted in parallel by the viewers of a pool. </br>
+ * Each viewer loads the documents one after the other and gives the text of their pages to the index
+ * as soon as it is extracted. The viewers are released to the pool once the documents are indexed.
+ */
+@Log4j2
+public class TextIndexer {
+
+    /**
+     * Pool providing the viewers
+     */
+    private final PDFDisplayerPool pool;
+
+    /**
+     * Version of PDF.js of the viewers
+     */
+    private final PdfJSVersion version;
+
+    /**
+     * Maximal number of viewers extracting documents at the same time
+     */
+    private final int parallelism;
+
+    /**
+     * Maximal time to load and extract a document
+     */
+    private final Duration documentTimeout;
+
+    /**
+     * Constructor
+     * @param pool            Pool providing the viewers
+     * @param version         Version of PDF.js of the viewers
+     * @param parallelism     Maximal number of viewers extracting documents at the same time
+     * @param documentTimeout Maximal time to load and extract a document
+     */
+    public TextIndexer(final PDFDisplayerPool pool, final PdfJSVersion version, final int parallelism,
+                       final Duration documentTimeout) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism : " + parallelism);
+        }
+        this.pool = pool;
+        this.version = version;
+        this.parallelism = parallelism;
+        this.documentTimeout = documentTimeout;
+    }
+
+    /**
+     * Index documents, replacing the documents already indexed with the same ids. </br>
+     * A document which can't be loaded or extracted in time is removed from the index.
+     * @param documents Sources of the documents, by id
+     * @param index     The index
+     * @return Future of the errors of the documents not indexed, by id. Empty if all the documents are indexed.
+     */
+    public CompletableFuture<Map<String, Throwable>> index(final Map<String, IDocumentSource> documents,
+                                                           final TextIndex index) {
+        final Batch batch = new Batch(new ArrayDeque<>(documents.entrySet()), index);
+        Platform.runLater(() -> {
+            batch.running = Math.min(parallelism, batch.queue.size());
+            if (batch.running == 0) {
+                batch.result.complete(Map.of());
+            }
+            for (int i = 0; i < batch.running; i++) {
+                indexNext(pool.acquire(version), batch);
+            }
+        });
+        return batch.result;
+    }
+
+    /**
+     * Index the next document of a batch with a viewer, or release the viewer if all the documents are taken
+     * @param displayer The viewer
+     * @param batch     The batch
+     */
+    private void indexNext(final PDFDisplayer displayer, final Batch batch) {
+        final Map.Entry<String, IDocumentSource> document = batch.queue.poll();
+        if (document == null) {
+            pool.release(displayer);
+            if (--batch.running == 0) {
+                batch.result.complete(Collections.unmodifiableMap(batch.errors));
+            }
+            return;
+        }
+
+        final String documentId = document.getKey();
+        batch.index.remove(documentId);
+        extract(displayer, document.getValue(), page -> batch.index.addPage(documentId, page))
+                .whenComplete((pages, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        log.warn("Can't index the document " + documentId + " : " + error);
+                        batch.index.remove(documentId);
+                        batch.errors.put(documentId, error);
+                    }
+                    indexNext(displayer, batch);
+                }));
+    }
+
+    /**
+     * Load a document in a viewer and extract its text
+     * @param displayer       The viewer
+     * @param source          Source of the document
+     * @param onPageExtracted Consumer of the text of each page
+     * @return Future of the text of the document
+     */
+    private CompletableFuture<List<PageText>> extract(final PDFDisplayer displayer, final IDocumentSource source,
+                                                      final Consumer<PageText> onPageExtracted) {
+        final CompletableFuture<List<PageText>> result = new CompletableFuture<List<PageText>>()
+                .orTimeout(documentTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        final ChangeListener<Boolean> loadedListener = (observable, wasLoaded, loaded) -> {
+            if (loaded) {
+                displayer.extractText(page -> {
+                    if (!result.isDone()) {
+                        onPageExtracted.accept(page);
+                    }
+                }).whenComplete((pages, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    }
+                    else {
+                        result.complete(pages);
+                    }
+                });
+            }
+        };
+        final ChangeListener<LoadingStage> stageListener = (observable, oldStage, stage) -> {
+            if (stage == LoadingStage.IDLE) {
+                result.completeExceptionally(new IOException("Can't load the document"));
+            }
+        };
+
+        displayer.closeDocument();
+        displayer.documentLoadedProperty().addListener(loadedListener);
+        displayer.loadPDF(source);
+        displayer.loadingStageProperty().addListener(stageListener);
+        result.whenComplete((pages, error) -> Platform.runLater(() -> {
+            displayer.documentLoadedProperty().removeListener(loadedListener);
+            displayer.loadingStageProperty().removeListener(stageListener);
+        }));
+        return result;
+    }
+
+    /**
+     * Documents being indexed, accessed on the JavaFX thread
+     */
+    private static class Batch {
+        /**
+         * Documents not taken by a viewer yet
+         */
+        private final Deque<Map.Entry<String, IDocumentSource>> queue;
+
+        /**
+         * The index
+         */
+        private final TextIndex index;
+
+        /**
+         * Errors of the documents not indexed, by id
+         */
+        private final Map<String, Throwable> errors = new LinkedHashMap<>();
+
+        /**
+         * Future of the errors, completed once all the viewers are released
+         */
+        private final CompletableFuture<Map<String, Throwable>> result = new CompletableFuture<>();
+
+        /**
+         * Number of viewers indexing documents
+         */
+        private int running;
+
+        Batch(final Deque<Map.Entry<String, IDocumentSource>> queue, final TextIndex index) {
+            this.queue = queue;
+            this.index = index;
+        }
+    }
+}